@@ -0,0 +1,19 @@
+package com.mathotech.autopartshub.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What both cache tiers actually store: the cached value plus when it was loaded and how long the
+ * load took, which together decide how early to refresh it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StampedValue {
+    private Object value;
+    // Epoch millis
+    private long loadedAt;
+    private long loadMillis;
+}
@@ -0,0 +1,311 @@
+package com.mathotech.autopartshub.cache;
+
+import com.mathotech.autopartshub.dto.CacheStatsDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded in-process cache in front of a shared Redis cache. Reads try memory, then Redis, and
+ * copy Redis hits into memory. Writes and evictions go to both and tell the other nodes to drop
+ * their in-memory copy.
+ * <p>
+ * Loads through {@link #get(Object, Callable)}, which {@code @Cacheable(sync = true)} uses, are
+ * single-flight per node: concurrent misses on a key wait for one loader call. As an entry nears
+ * its Redis expiry, a hit may instead reload it early (probabilistic early expiration, more likely
+ * the closer the expiry and the slower the load) while other callers keep getting the old value,
+ * so a hot key is normally refreshed before it ever expires.
+ * <p>
+ * Redis failures are logged and counted, never thrown: a read falls back to the loader and a
+ * write stays local.
+ */
+@Slf4j
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final LocalCache local;
+    private final Cache remote;
+    private final long remoteTtlMillis;
+    private final double earlyRefreshBeta;
+    private final EvictionPublisher evictionPublisher;
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder remoteErrors = new LongAdder();
+
+    TwoTierCache(String name, int localMaxSize, Duration localTtl, Cache remote, Duration remoteTtl,
+                 double earlyRefreshBeta, EvictionPublisher evictionPublisher) {
+        super(true);
+        this.name = name;
+        this.local = new LocalCache(localMaxSize, localTtl, evictions);
+        this.remote = remote;
+        this.remoteTtlMillis = remoteTtl.toMillis();
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.evictionPublisher = evictionPublisher;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String localKey = localKey(key);
+        Object stored = local.get(localKey);
+        if (stored != null) {
+            localHits.increment();
+            return stored;
+        }
+
+        ValueWrapper wrapper = null;
+        try {
+            wrapper = remote.get(key);
+        } catch (RuntimeException ex) {
+            remoteFailed("read", key, ex);
+        }
+        if (wrapper == null) {
+            misses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        stored = wrapper.get() instanceof StampedValue
+                ? wrapper.get()
+                : new StampedValue(wrapper.get(), System.currentTimeMillis(), 0);
+        local.put(localKey, stored);
+        return stored;
+    }
+
+    @Override
+    protected Object fromStoreValue(Object storeValue) {
+        return super.fromStoreValue(storeValue instanceof StampedValue stamped ? stamped.getValue() : storeValue);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        StampedValue cached = (StampedValue) lookup(key);
+        if (cached != null && !dueForEarlyRefresh(cached)) {
+            return (T) cached.getValue();
+        }
+
+        String localKey = localKey(key);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = loading.putIfAbsent(localKey, mine);
+        if (running != null) {
+            if (cached != null) {
+                // Someone is already refreshing; keep serving the current value meanwhile
+                return (T) cached.getValue();
+            }
+            coalesced.increment();
+            return (T) await(running, key, valueLoader);
+        }
+
+        try {
+            if (cached == null) {
+                // The previous loader may have finished between our lookup and taking its place
+                Object justLoaded = local.get(localKey);
+                if (justLoaded != null) {
+                    Object value = fromStoreValue(justLoaded);
+                    mine.complete(value);
+                    return (T) value;
+                }
+            } else {
+                earlyRefreshes.increment();
+            }
+
+            long started = System.currentTimeMillis();
+            T value = valueLoader.call();
+            store(key, localKey, new StampedValue(value, System.currentTimeMillis(),
+                    System.currentTimeMillis() - started));
+            mine.complete(value);
+            return value;
+        } catch (Exception ex) {
+            mine.completeExceptionally(ex);
+            if (cached != null) {
+                log.warn("Early refresh of {}::{} failed; serving the cached value: {}", name, key, ex.getMessage());
+                return (T) cached.getValue();
+            }
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        } finally {
+            loading.remove(localKey, mine);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        store(key, localKey(key), new StampedValue(value, System.currentTimeMillis(), 0));
+    }
+
+    /**
+     * The values this node holds in memory for any of the keys, skipping Redis. For batch reads,
+     * where a Redis round trip per missing key would cost more than one query for all of them.
+     */
+    public <K> Map<K, Object> getAllLocal(Collection<K> keys) {
+        Map<K, Object> found = new HashMap<>();
+        for (K key : keys) {
+            Object stored = local.get(localKey(key));
+            if (stored != null) {
+                localHits.increment();
+                found.put(key, fromStoreValue(stored));
+            } else {
+                misses.increment();
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Caches a batch-loaded value in this node's memory only. Nothing is written to Redis or
+     * announced, so a batch costs no network calls beyond its query; evictions still reach it.
+     */
+    public void putLocal(Object key, Object value) {
+        local.put(localKey(key), new StampedValue(value, System.currentTimeMillis(), 0));
+    }
+
+    @Override
+    public void evict(Object key) {
+        try {
+            remote.evict(key);
+        } catch (RuntimeException ex) {
+            remoteFailed("evict", key, ex);
+        }
+        String localKey = localKey(key);
+        local.evict(localKey);
+        evictionPublisher.evicted(name, localKey);
+    }
+
+    /**
+     * Evicts several keys and tells the other nodes in one message rather than one per key.
+     */
+    public void evictAll(Collection<?> keys) {
+        List<String> localKeys = new ArrayList<>(keys.size());
+        for (Object key : keys) {
+            try {
+                remote.evict(key);
+            } catch (RuntimeException ex) {
+                remoteFailed("evict", key, ex);
+            }
+            String localKey = localKey(key);
+            local.evict(localKey);
+            localKeys.add(localKey);
+        }
+        if (!localKeys.isEmpty()) {
+            evictionPublisher.evictedAll(name, localKeys);
+        }
+    }
+
+    @Override
+    public void clear() {
+        try {
+            remote.clear();
+        } catch (RuntimeException ex) {
+            remoteFailed("clear", "*", ex);
+        }
+        local.clear();
+        evictionPublisher.cleared(name);
+    }
+
+    /**
+     * Drops this node's copy after another node changed the entry.
+     */
+    void evictLocal(String localKey) {
+        local.evict(localKey);
+    }
+
+    void clearLocal() {
+        local.clear();
+    }
+
+    CacheStatsDto stats() {
+        long hits = localHits.sum() + remoteHits.sum();
+        long lookups = hits + misses.sum();
+        return CacheStatsDto.builder()
+                .name(name)
+                .localSize(local.size())
+                .localHits(localHits.sum())
+                .remoteHits(remoteHits.sum())
+                .misses(misses.sum())
+                .hitRatio(lookups == 0 ? 0 : (double) hits / lookups)
+                .coalesced(coalesced.sum())
+                .earlyRefreshes(earlyRefreshes.sum())
+                .evictions(evictions.sum())
+                .remoteErrors(remoteErrors.sum())
+                .build();
+    }
+
+    // Matches how RedisCache renders simple keys, so a key means the same entry on both tiers
+    static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private void store(Object key, String localKey, StampedValue stamped) {
+        try {
+            remote.put(key, stamped);
+        } catch (RuntimeException ex) {
+            remoteFailed("write", key, ex);
+        }
+        local.put(localKey, stamped);
+        evictionPublisher.evicted(name, localKey);
+    }
+
+    /**
+     * True with a probability that rises as the entry nears its Redis expiry: the expiry is
+     * brought forward by the load time scaled by -ln(random), so slow loads start refreshing
+     * sooner and only a handful of hits ever see it come due.
+     */
+    private boolean dueForEarlyRefresh(StampedValue cached) {
+        if (earlyRefreshBeta <= 0) {
+            return false;
+        }
+        double lead = Math.max(cached.getLoadMillis(), 1) * earlyRefreshBeta
+                * -Math.log(1 - ThreadLocalRandom.current().nextDouble());
+        return System.currentTimeMillis() + lead >= cached.getLoadedAt() + remoteTtlMillis;
+    }
+
+    private Object await(CompletableFuture<Object> running, Object key, Callable<?> valueLoader) {
+        try {
+            return running.join();
+        } catch (CompletionException ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+        }
+    }
+
+    private void remoteFailed(String operation, Object key, RuntimeException ex) {
+        remoteErrors.increment();
+        log.warn("Redis cache {} failed for {}::{}: {}", operation, name, key, ex.getMessage());
+    }
+
+    interface EvictionPublisher {
+        void evicted(String cacheName, String localKey);
+
+        void evictedAll(String cacheName, Collection<String> localKeys);
+
+        void cleared(String cacheName);
+    }
+}
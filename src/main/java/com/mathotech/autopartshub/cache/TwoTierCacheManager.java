@@ -0,0 +1,117 @@
+package com.mathotech.autopartshub.cache;
+
+import com.mathotech.autopartshub.config.CacheProperties;
+import com.mathotech.autopartshub.dto.CacheStatsDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Creates a {@link TwoTierCache} for each cache name on first use, sized from
+ * {@link CacheProperties}, and relays in-memory evictions between nodes over a Redis channel.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager, TwoTierCache.EvictionPublisher {
+
+    private static final String CLEAR = "C";
+    private static final String EVICT = "E";
+    private static final String EVICT_ALL = "A";
+
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+    private final RedisCacheManager remoteCaches;
+    private final CacheProperties properties;
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    // Lets a node skip its own eviction messages
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public TwoTierCacheManager(RedisCacheManager remoteCaches, CacheProperties properties,
+                               StringRedisTemplate redisTemplate, String channel) {
+        this.remoteCaches = remoteCaches;
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, cacheName -> {
+            CacheProperties.Spec spec = properties.specFor(cacheName);
+            return new TwoTierCache(cacheName, spec.getLocalMaxSize(), spec.getLocalTtl(),
+                    remoteCaches.getCache(cacheName), spec.getTtl(), properties.getEarlyRefreshBeta(), this);
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    public List<CacheStatsDto> getStats() {
+        return caches.values().stream()
+                .map(TwoTierCache::stats)
+                .sorted(Comparator.comparing(CacheStatsDto::getName))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void evicted(String cacheName, String localKey) {
+        publish(EVICT, cacheName, localKey);
+    }
+
+    // Cache keys here are IDs and fixed names, so a newline can separate them
+    @Override
+    public void evictedAll(String cacheName, Collection<String> localKeys) {
+        publish(EVICT_ALL, cacheName, String.join("\n", localKeys));
+    }
+
+    @Override
+    public void cleared(String cacheName) {
+        publish(CLEAR, cacheName, "");
+    }
+
+    /**
+     * Applies another node's eviction to this node's in-memory tier. Messages are
+     * {@code nodeId|operation|cacheName|key}; the key is last so it may contain the separator.
+     */
+    public void onEvictionMessage(String message) {
+        String[] parts = message.split("\\|", 4);
+        if (parts.length != 4) {
+            log.warn("Ignoring malformed cache eviction message '{}'", message);
+            return;
+        }
+        if (nodeId.equals(parts[0])) {
+            return;
+        }
+        // A cache this node hasn't used yet has nothing to drop
+        TwoTierCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+        if (CLEAR.equals(parts[1])) {
+            cache.clearLocal();
+        } else if (EVICT_ALL.equals(parts[1])) {
+            for (String localKey : parts[3].split("\n")) {
+                cache.evictLocal(localKey);
+            }
+        } else {
+            cache.evictLocal(parts[3]);
+        }
+    }
+
+    private void publish(String operation, String cacheName, String localKey) {
+        try {
+            redisTemplate.convertAndSend(channel, nodeId + "|" + operation + "|" + cacheName + "|" + localKey);
+        } catch (RuntimeException ex) {
+            // Other nodes' copies expire with the in-memory TTL
+            log.warn("Failed to announce eviction from cache {}: {}", cacheName, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.mathotech.autopartshub.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sizes and lifetimes for the two-tier caches under {@code app.cache}. A cache without its own
+ * entry, or an entry leaving a field out, falls back to {@code app.cache.defaults}.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache")
+public class CacheProperties {
+
+    private Spec defaults = new Spec(Duration.ofMinutes(10), 1000, Duration.ofMinutes(1));
+
+    private Map<String, Spec> caches = new HashMap<>();
+
+    // Scales how far ahead of expiry hot entries are reloaded; 0 turns early refresh off
+    private double earlyRefreshBeta = 1.0;
+
+    public Spec specFor(String cacheName) {
+        Spec spec = caches.get(cacheName);
+        if (spec == null) {
+            return defaults;
+        }
+        return new Spec(
+                spec.getTtl() != null ? spec.getTtl() : defaults.getTtl(),
+                spec.getLocalMaxSize() != null ? spec.getLocalMaxSize() : defaults.getLocalMaxSize(),
+                spec.getLocalTtl() != null ? spec.getLocalTtl() : defaults.getLocalTtl());
+    }
+
+    @Data
+    public static class Spec {
+        // Lifetime in Redis
+        private Duration ttl;
+        // Entries held in each node's memory
+        private Integer localMaxSize;
+        // Lifetime in memory; bounds staleness if an eviction message is lost
+        private Duration localTtl;
+
+        public Spec() {
+        }
+
+        public Spec(Duration ttl, Integer localMaxSize, Duration localTtl) {
+            this.ttl = ttl;
+            this.localMaxSize = localMaxSize;
+            this.localTtl = localTtl;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.mathotech.autopartshub.config;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.mathotech.autopartshub.cache.TwoTierCacheManager;
+import com.mathotech.autopartshub.service.ListingChangeRelay;
+import com.mathotech.autopartshub.service.ReferenceDataService;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class RedisConfig {
+
+    /**
+     * Carries the new reference data version whenever a node commits a category or brand change.
+     */
+    public static final String REFERENCE_DATA_CHANNEL = "autopartshub:reference-data";
+
+    /**
+     * Carries cache evictions so every node drops its in-memory copy.
+     */
+    public static final String CACHE_EVICTION_CHANNEL = "autopartshub:cache-evictions";
+
+    /**
+     * Carries committed listing changes so every node updates its in-memory listing indexes.
+     */
+    public static final String LISTING_CHANGE_CHANNEL = "autopartshub:listing-changes";
+
+    @Bean
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory, StringRedisTemplate redisTemplate,
+                                            ObjectMapper objectMapper, CacheProperties cacheProperties) {
+        // Cached values are DTOs, so type information is only trusted for our own and JDK types
+        ObjectMapper cacheMapper = objectMapper.copy();
+        cacheMapper.activateDefaultTyping(BasicPolymorphicTypeValidator.builder()
+                        .allowIfSubType("com.mathotech.autopartshub.")
+                        .allowIfSubType("java.util.")
+                        .allowIfSubType("java.math.")
+                        .allowIfSubType("java.time.")
+                        .build(),
+                ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig()
+                .prefixCacheNameWith("autopartshub:cache:")
+                .serializeValuesWith(SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer(cacheMapper)))
+                .entryTtl(cacheProperties.getDefaults().getTtl());
+
+        Map<String, RedisCacheConfiguration> perCache = new HashMap<>();
+        cacheProperties.getCaches().keySet().forEach(name ->
+                perCache.put(name, defaults.entryTtl(cacheProperties.specFor(name).getTtl())));
+
+        RedisCacheManager remoteCaches = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(defaults)
+                .withInitialCacheConfigurations(perCache)
+                .build();
+        remoteCaches.afterPropertiesSet();
+        return new TwoTierCacheManager(remoteCaches, cacheProperties, redisTemplate, CACHE_EVICTION_CHANNEL);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       ReferenceDataService referenceDataService,
+                                                                       TwoTierCacheManager cacheManager,
+                                                                       ListingChangeRelay listingChangeRelay) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> referenceDataService.onRemoteChange(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(REFERENCE_DATA_CHANNEL));
+        container.addMessageListener(
+                (message, pattern) -> cacheManager.onEvictionMessage(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CACHE_EVICTION_CHANNEL));
+        container.addMessageListener(
+                (message, pattern) -> listingChangeRelay.onMessage(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(LISTING_CHANGE_CHANNEL));
+        return container;
+    }
+}
@@ -2,6 +2,9 @@ package com.mathotech.autopartshub.controller;
 
 import com.mathotech.autopartshub.dto.brand.BrandDto;
 import com.mathotech.autopartshub.service.BrandService;
+import com.mathotech.autopartshub.service.ETags;
+import com.mathotech.autopartshub.service.ListingCounterService;
+import com.mathotech.autopartshub.service.ReferenceDataService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -11,8 +14,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/brands")
@@ -20,24 +25,32 @@ import java.util.List;
 public class BrandController {
 
     private final BrandService brandService;
+    private final ReferenceDataService referenceDataService;
+    private final ListingCounterService listingCounterService;
 
     @GetMapping
-    public ResponseEntity<List<BrandDto>> getAllBrands() {
-        return ResponseEntity.ok(brandService.getAllBrands());
+    public ResponseEntity<List<BrandDto>> getAllBrands(WebRequest request) {
+        return ConditionalGet.respond(request, etag("all"), ConditionalGet.CATALOG,
+                () -> brandService.getAllBrands().stream()
+                        .map(brandService::withListingCount)
+                        .collect(Collectors.toList()));
     }
 
     @GetMapping("/page")
     public ResponseEntity<Page<BrandDto>> getBrandsPage(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
-            @RequestParam(defaultValue = "name") String sortBy) {
+            @RequestParam(defaultValue = "name") String sortBy,
+            WebRequest request) {
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by(sortBy));
-        return ResponseEntity.ok(brandService.getBrandsPage(pageRequest));
+        return ConditionalGet.respond(request, etag(page + "-" + size + "-" + sortBy), ConditionalGet.CATALOG,
+                () -> brandService.getBrandsPage(pageRequest).map(brandService::withListingCount));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<BrandDto> getBrandById(@PathVariable Long id) {
-        return ResponseEntity.ok(brandService.getBrandById(id));
+    public ResponseEntity<BrandDto> getBrandById(@PathVariable Long id, WebRequest request) {
+        return ConditionalGet.respond(request, etag(id), ConditionalGet.CATALOG,
+                () -> brandService.withListingCount(brandService.getBrandById(id)));
     }
 
     @PostMapping
@@ -60,4 +73,10 @@ public class BrandController {
         brandService.deleteBrand(id);
         return ResponseEntity.noContent().build();
     }
+
+    // Brand bodies are reference data plus listing counts, so their two versions cover them
+    private String etag(Object resource) {
+        return ETags.of("brands", resource, "r" + referenceDataService.getVersion(),
+                "c" + listingCounterService.getVersion());
+    }
 }
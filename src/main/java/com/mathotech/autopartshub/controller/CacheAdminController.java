@@ -0,0 +1,29 @@
+package com.mathotech.autopartshub.controller;
+
+import com.mathotech.autopartshub.cache.TwoTierCacheManager;
+import com.mathotech.autopartshub.dto.CacheStatsDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/caches")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ROLE_ADMIN')")
+public class CacheAdminController {
+
+    private final TwoTierCacheManager cacheManager;
+
+    /**
+     * Hit, miss and eviction counts for each cache on the node answering the request.
+     */
+    @GetMapping
+    public ResponseEntity<List<CacheStatsDto>> getCacheStats() {
+        return ResponseEntity.ok(cacheManager.getStats());
+    }
+}
@@ -2,12 +2,16 @@ package com.mathotech.autopartshub.controller;
 
 import com.mathotech.autopartshub.dto.category.CategoryDto;
 import com.mathotech.autopartshub.service.CategoryService;
+import com.mathotech.autopartshub.service.ETags;
+import com.mathotech.autopartshub.service.ListingCounterService;
+import com.mathotech.autopartshub.service.ReferenceDataService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -17,20 +21,25 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final ReferenceDataService referenceDataService;
+    private final ListingCounterService listingCounterService;
 
     @GetMapping
-    public ResponseEntity<List<CategoryDto>> getAllParentCategories() {
-        return ResponseEntity.ok(categoryService.getAllParentCategories());
+    public ResponseEntity<List<CategoryDto>> getAllParentCategories(WebRequest request) {
+        return ConditionalGet.respond(request, etag("parents"), ConditionalGet.CATALOG,
+                () -> categoryService.withListingCounts(categoryService.getAllParentCategories()));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<CategoryDto> getCategoryById(@PathVariable Long id) {
-        return ResponseEntity.ok(categoryService.getCategoryById(id));
+    public ResponseEntity<CategoryDto> getCategoryById(@PathVariable Long id, WebRequest request) {
+        return ConditionalGet.respond(request, etag(id), ConditionalGet.CATALOG,
+                () -> categoryService.withListingCounts(categoryService.getCategoryById(id)));
     }
 
     @GetMapping("/{id}/subcategories")
-    public ResponseEntity<List<CategoryDto>> getSubcategories(@PathVariable Long id) {
-        return ResponseEntity.ok(categoryService.getSubcategories(id));
+    public ResponseEntity<List<CategoryDto>> getSubcategories(@PathVariable Long id, WebRequest request) {
+        return ConditionalGet.respond(request, etag(id + "-sub"), ConditionalGet.CATALOG,
+                () -> categoryService.withListingCounts(categoryService.getSubcategories(id)));
     }
 
     @PostMapping
@@ -53,4 +62,10 @@ public class CategoryController {
         categoryService.deleteCategory(id);
         return ResponseEntity.noContent().build();
     }
+
+    // Category bodies are the category tree plus listing counts, so their two versions cover them
+    private String etag(Object resource) {
+        return ETags.of("categories", resource, "r" + referenceDataService.getVersion(),
+                "c" + listingCounterService.getVersion());
+    }
 }
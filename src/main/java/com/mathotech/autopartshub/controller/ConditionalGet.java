@@ -0,0 +1,44 @@
+package com.mathotech.autopartshub.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET for the public read endpoints. The ETag is computed from versions first and the
+ * body only when the client's copy is out of date. Computing it first also means a change racing
+ * the request can only make the ETag older than the body, which costs an extra 200 later, never a
+ * wrong 304.
+ */
+final class ConditionalGet {
+
+    // Reference data and its listing counts: short enough that counts stay roughly current
+    static final CacheControl CATALOG = CacheControl.maxAge(60, TimeUnit.SECONDS).cachePublic();
+    // Stock and price matter, so clients revalidate every time; a 304 is cheap
+    static final CacheControl LISTING = CacheControl.noCache().cachePublic();
+    static final CacheControl REVIEWS = CacheControl.maxAge(60, TimeUnit.SECONDS).cachePublic();
+
+    private ConditionalGet() {
+    }
+
+    static <T> ResponseEntity<T> respond(WebRequest request, String etag, CacheControl cacheControl, Supplier<T> body) {
+        if (request.checkNotModified(etag)) {
+            return notModified(etag, cacheControl);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .body(body.get());
+    }
+
+    static <T> ResponseEntity<T> notModified(String etag, CacheControl cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .build();
+    }
+}
@@ -0,0 +1,35 @@
+package com.mathotech.autopartshub.controller;
+
+import com.mathotech.autopartshub.dto.listing.FitmentImportResultDto;
+import com.mathotech.autopartshub.model.Role;
+import com.mathotech.autopartshub.model.User;
+import com.mathotech.autopartshub.service.FitmentImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/fitments")
+@RequiredArgsConstructor
+public class FitmentImportController {
+
+    private final FitmentImportService fitmentImportService;
+
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ROLE_SELLER') or hasRole('ROLE_ADMIN')")
+    public ResponseEntity<FitmentImportResultDto> importFitments(
+            @RequestParam("file") MultipartFile file,
+            @AuthenticationPrincipal User user) throws IOException {
+        // Sellers may only add fitments to their own listings
+        Long sellerId = user.getRole() == Role.ROLE_ADMIN ? null : user.getId();
+        try (InputStream csv = file.getInputStream()) {
+            return ResponseEntity.ok(fitmentImportService.importCsv(csv, sellerId));
+        }
+    }
+}
@@ -1,92 +1,163 @@
 package com.mathotech.autopartshub.controller;
 
+import com.mathotech.autopartshub.dto.CountMode;
+import com.mathotech.autopartshub.dto.listing.FacetedListingsDto;
+import com.mathotech.autopartshub.dto.listing.ListingBatchRequest;
+import com.mathotech.autopartshub.dto.listing.ListingBrowseFilter;
 import com.mathotech.autopartshub.dto.listing.ListingDto;
+import com.mathotech.autopartshub.dto.listing.ListingJson;
+import com.mathotech.autopartshub.dto.listing.ListingSearchCriteria;
+import com.mathotech.autopartshub.dto.listing.ListingSummaryDto;
+import com.mathotech.autopartshub.dto.listing.PriceBucket;
 import com.mathotech.autopartshub.model.Condition;
 import com.mathotech.autopartshub.model.User;
+import com.mathotech.autopartshub.service.InventoryService;
+import com.mathotech.autopartshub.service.ListingSearchService;
 import com.mathotech.autopartshub.service.ListingService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/listings")
 @RequiredArgsConstructor
 public class ListingController {
 
+    private static final Set<String> SEARCH_SORT_FIELDS = Set.of("createdAt", "price", "averageRating");
+
     private final ListingService listingService;
+    private final ListingSearchService listingSearchService;
+    private final InventoryService inventoryService;
+
+    /*
+     * Browse endpoints support two paging modes. By default they return a Page using page/size.
+     * When a cursor parameter is sent (empty for the first page) they switch to keyset paging and
+     * return a CursorPage; sortBy is then limited to createdAt, price or averageRating.
+     * In page/size mode, count=NONE drops the total (Slice) and count=APPROXIMATE serves a cached one.
+     */
 
     @GetMapping
-    public ResponseEntity<Page<ListingDto>> getAllListings(
+    public ResponseEntity<?> getAllListings(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDir) {
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "EXACT") CountMode count) {
+        if (cursor != null) {
+            return ResponseEntity.ok(listingService.getListingsAfterCursor(
+                    ListingBrowseFilter.builder().build(), sortBy, sortDir, cursor, size));
+        }
         Sort.Direction direction = sortDir.equalsIgnoreCase("ASC") ? Sort.Direction.ASC : Sort.Direction.DESC;
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by(direction, sortBy));
-        return ResponseEntity.ok(listingService.getAllListings(pageRequest));
+        return ResponseEntity.ok(listingService.getAllListings(pageRequest, count));
     }
 
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<Page<ListingDto>> getListingsByCategory(
+    public ResponseEntity<?> getListingsByCategory(
             @PathVariable Long categoryId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDir) {
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "EXACT") CountMode count) {
+        if (cursor != null) {
+            return ResponseEntity.ok(listingService.getListingsAfterCursor(
+                    ListingBrowseFilter.builder().categoryId(categoryId).build(), sortBy, sortDir, cursor, size));
+        }
         Sort.Direction direction = sortDir.equalsIgnoreCase("ASC") ? Sort.Direction.ASC : Sort.Direction.DESC;
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by(direction, sortBy));
-        return ResponseEntity.ok(listingService.getListingsByCategory(categoryId, pageRequest));
+        return ResponseEntity.ok(listingService.getListingsByCategory(categoryId, pageRequest, count));
     }
 
     @GetMapping("/brand/{brandId}")
-    public ResponseEntity<Page<ListingDto>> getListingsByBrand(
+    public ResponseEntity<?> getListingsByBrand(
             @PathVariable Long brandId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDir) {
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "EXACT") CountMode count) {
+        if (cursor != null) {
+            return ResponseEntity.ok(listingService.getListingsAfterCursor(
+                    ListingBrowseFilter.builder().brandId(brandId).build(), sortBy, sortDir, cursor, size));
+        }
         Sort.Direction direction = sortDir.equalsIgnoreCase("ASC") ? Sort.Direction.ASC : Sort.Direction.DESC;
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by(direction, sortBy));
-        return ResponseEntity.ok(listingService.getListingsByBrand(brandId, pageRequest));
+        return ResponseEntity.ok(listingService.getListingsByBrand(brandId, pageRequest, count));
     }
 
     @GetMapping("/seller/{sellerId}")
-    public ResponseEntity<Page<ListingDto>> getListingsBySeller(
+    public ResponseEntity<?> getListingsBySeller(
             @PathVariable Long sellerId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDir) {
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "EXACT") CountMode count) {
+        if (cursor != null) {
+            return ResponseEntity.ok(listingService.getListingsAfterCursor(
+                    ListingBrowseFilter.builder().sellerId(sellerId).activeOnly(false).build(),
+                    sortBy, sortDir, cursor, size));
+        }
         Sort.Direction direction = sortDir.equalsIgnoreCase("ASC") ? Sort.Direction.ASC : Sort.Direction.DESC;
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by(direction, sortBy));
-        return ResponseEntity.ok(listingService.getListingsBySeller(sellerId, pageRequest));
+        return ResponseEntity.ok(listingService.getListingsBySeller(sellerId, pageRequest, count));
     }
 
+    /*
+     * Each filter parameter may repeat (categoryId=1&categoryId=2): values of one parameter are
+     * ORed, different parameters ANDed. facets=true wraps the page with per-facet counts.
+     */
     @GetMapping("/filter")
-    public ResponseEntity<Page<ListingDto>> getListingsByFilters(
-            @RequestParam(required = false) Long categoryId,
-            @RequestParam(required = false) Long brandId,
-            @RequestParam(required = false) Condition condition,
+    public ResponseEntity<?> getListingsByFilters(
+            @RequestParam(required = false) List<Long> categoryId,
+            @RequestParam(required = false) List<Long> brandId,
+            @RequestParam(required = false) List<Condition> condition,
+            @RequestParam(required = false) List<PriceBucket> price,
+            @RequestParam(required = false) Integer minRating,
+            @RequestParam(defaultValue = "false") boolean facets,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDir) {
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "EXACT") CountMode count) {
+        ListingBrowseFilter filter = ListingBrowseFilter.builder()
+                .categoryIds(categoryId)
+                .brandIds(brandId)
+                .conditions(condition)
+                .priceBuckets(price)
+                .minRating(minRating)
+                .build();
+        if (cursor != null) {
+            return ResponseEntity.ok(listingService.getListingsAfterCursor(filter, sortBy, sortDir, cursor, size));
+        }
         Sort.Direction direction = sortDir.equalsIgnoreCase("ASC") ? Sort.Direction.ASC : Sort.Direction.DESC;
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by(direction, sortBy));
-        return ResponseEntity.ok(listingService.getListingsByFilters(categoryId, brandId, condition, pageRequest));
+        FacetedListingsDto result = listingService.getListingsByFilters(filter, pageRequest, count, facets);
+        return facets ? ResponseEntity.ok(result) : ResponseEntity.ok(result.getListings());
     }
 
     @GetMapping("/vehicle-compatibility")
-    public ResponseEntity<Page<ListingDto>> getListingsByVehicleCompatibility(
+    public ResponseEntity<?> getListingsByVehicleCompatibility(
             @RequestParam String make,
             @RequestParam String model,
             @RequestParam Integer year,
@@ -94,15 +165,76 @@ public class ListingController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDir) {
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "EXACT") CountMode count) {
+        if (cursor != null) {
+            ListingBrowseFilter filter = ListingBrowseFilter.builder()
+                    .make(make)
+                    .model(model)
+                    .year(year)
+                    .engine(engine)
+                    .build();
+            return ResponseEntity.ok(listingService.getListingsAfterCursor(filter, sortBy, sortDir, cursor, size));
+        }
         Sort.Direction direction = sortDir.equalsIgnoreCase("ASC") ? Sort.Direction.ASC : Sort.Direction.DESC;
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by(direction, sortBy));
-        return ResponseEntity.ok(listingService.getListingsByVehicleCompatibility(make, model, year, engine, pageRequest));
+        return ResponseEntity.ok(listingService.getListingsByVehicleCompatibility(make, model, year, engine, pageRequest, count));
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<Page<ListingDto>> searchListings(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Long brandId,
+            @RequestParam(required = false) Condition condition,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String make,
+            @RequestParam(required = false) String model,
+            @RequestParam(required = false) Integer year,
+            @RequestParam(required = false) String engine,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "relevance") String sortBy,
+            @RequestParam(defaultValue = "DESC") String sortDir) {
+        // Only numeric/date fields are sortable in the index; anything else falls back to relevance
+        PageRequest pageRequest = PageRequest.of(page, size);
+        if (SEARCH_SORT_FIELDS.contains(sortBy)) {
+            Sort.Direction direction = sortDir.equalsIgnoreCase("ASC") ? Sort.Direction.ASC : Sort.Direction.DESC;
+            pageRequest = PageRequest.of(page, size, Sort.by(direction, sortBy));
+        }
+
+        ListingSearchCriteria criteria = ListingSearchCriteria.builder()
+                .query(q)
+                .categoryId(categoryId)
+                .brandId(brandId)
+                .condition(condition)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .make(make)
+                .model(model)
+                .year(year)
+                .engine(engine)
+                .build();
+        return ResponseEntity.ok(listingSearchService.search(criteria, pageRequest));
+    }
+
+    // Written from cached JSON bytes; a matching If-None-Match gets 304
     @GetMapping("/{id}")
-    public ResponseEntity<ListingDto> getListingById(@PathVariable Long id) {
-        return ResponseEntity.ok(listingService.getListingById(id));
+    public ResponseEntity<byte[]> getListingById(@PathVariable Long id, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String etag = listingService.getListingEtag(id);
+            if (request.checkNotModified(etag)) {
+                return ConditionalGet.notModified(etag, ConditionalGet.LISTING);
+            }
+        }
+        ListingJson json = listingService.getListingJson(id);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(json.getEtag())
+                .cacheControl(ConditionalGet.LISTING)
+                .body(json.getBody());
     }
 
     @PostMapping
@@ -147,6 +279,25 @@ public class ListingController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Puts a listing in or out of hot-stock mode for a flash sale, where checkout nodes hold
+     * blocks of its stock in memory.
+     */
+    @PatchMapping("/{id}/hot-stock")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<Void> setListingHotStock(@PathVariable Long id, @RequestParam boolean enabled) {
+        inventoryService.setHotStock(id, enabled);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Summaries for up to 500 listing IDs in one call, for carts, wishlists and order history.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<ListingSummaryDto>> getListingsBatch(@Valid @RequestBody ListingBatchRequest request) {
+        return ResponseEntity.ok(listingService.getListingSummaries(request.getIds()));
+    }
+
     @GetMapping("/featured")
     public ResponseEntity<List<ListingDto>> getFeaturedListings() {
         return ResponseEntity.ok(listingService.getFeaturedListings());
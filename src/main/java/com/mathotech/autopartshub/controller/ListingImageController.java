@@ -6,6 +6,7 @@ import com.mathotech.autopartshub.service.FileStorageService;
 import com.mathotech.autopartshub.service.ListingImageService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -13,10 +14,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequiredArgsConstructor
@@ -26,8 +29,9 @@ public class ListingImageController {
     private final FileStorageService fileStorageService;
 
     @GetMapping("/api/listings/{listingId}/images")
-    public ResponseEntity<List<ListingImageDto>> getListingImages(@PathVariable Long listingId) {
-        return ResponseEntity.ok(listingImageService.getListingImages(listingId));
+    public ResponseEntity<List<ListingImageDto>> getListingImages(@PathVariable Long listingId, WebRequest request) {
+        return ConditionalGet.respond(request, listingImageService.getListingImagesEtag(listingId),
+                ConditionalGet.LISTING, () -> listingImageService.getListingImages(listingId));
     }
 
     @PostMapping("/api/listings/{listingId}/images")
@@ -71,8 +75,10 @@ public class ListingImageController {
             contentType = "application/octet-stream";
         }
         
+        // Stored files get a fresh random name and are never rewritten in place
         return ResponseEntity.ok()
                 .contentType(MediaType.parseMediaType(contentType))
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
                 .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
                 .body(resource);
     }
@@ -1,12 +1,13 @@
 package com.mathotech.autopartshub.controller;
 
+import com.mathotech.autopartshub.dto.CountMode;
 import com.mathotech.autopartshub.dto.notification.NotificationDto;
 import com.mathotech.autopartshub.model.User;
 import com.mathotech.autopartshub.service.NotificationService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -25,24 +26,26 @@ public class NotificationController {
 
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Page<NotificationDto>> getUserNotifications(
+    public ResponseEntity<Slice<NotificationDto>> getUserNotifications(
             @AuthenticationPrincipal User user,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "EXACT") CountMode count) {
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        return ResponseEntity.ok(notificationService.getUserNotifications(user.getId(), pageable));
+        return ResponseEntity.ok(notificationService.getUserNotifications(user.getId(), pageable, count));
     }
 
     @GetMapping("/unread")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Page<NotificationDto>> getUnreadNotifications(
+    public ResponseEntity<Slice<NotificationDto>> getUnreadNotifications(
             @AuthenticationPrincipal User user,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "EXACT") CountMode count) {
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        return ResponseEntity.ok(notificationService.getUnreadNotifications(user.getId(), pageable));
+        return ResponseEntity.ok(notificationService.getUnreadNotifications(user.getId(), pageable, count));
     }
 
     @GetMapping("/count")
@@ -1,5 +1,6 @@
 package com.mathotech.autopartshub.controller;
 
+import com.mathotech.autopartshub.dto.CountMode;
 import com.mathotech.autopartshub.dto.order.CreateOrderRequest;
 import com.mathotech.autopartshub.dto.order.OrderDto;
 import com.mathotech.autopartshub.dto.order.UpdateOrderStatusRequest;
@@ -8,8 +9,8 @@ import com.mathotech.autopartshub.model.User;
 import com.mathotech.autopartshub.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -41,22 +42,23 @@ public class OrderController {
 
     @GetMapping("/buyer")
     @PreAuthorize("hasRole('ROLE_BUYER')")
-    public ResponseEntity<Page<OrderDto>> getCurrentBuyerOrders(
+    public ResponseEntity<Slice<OrderDto>> getCurrentBuyerOrders(
             @RequestParam(required = false) OrderStatus status,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
             @RequestParam(defaultValue = "DESC") String sortDir,
+            @RequestParam(defaultValue = "EXACT") CountMode count,
             @AuthenticationPrincipal User user) {
         
         Sort.Direction direction = sortDir.equalsIgnoreCase("ASC") ? Sort.Direction.ASC : Sort.Direction.DESC;
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by(direction, sortBy));
         
-        Page<OrderDto> orders;
+        Slice<OrderDto> orders;
         if (status != null) {
-            orders = orderService.getOrdersByBuyerAndStatus(user.getId(), status, pageRequest);
+            orders = orderService.getOrdersByBuyerAndStatus(user.getId(), status, pageRequest, count);
         } else {
-            orders = orderService.getOrdersByBuyer(user.getId(), pageRequest);
+            orders = orderService.getOrdersByBuyer(user.getId(), pageRequest, count);
         }
         
         return ResponseEntity.ok(orders);
@@ -64,22 +66,23 @@ public class OrderController {
 
     @GetMapping("/seller")
     @PreAuthorize("hasRole('ROLE_SELLER')")
-    public ResponseEntity<Page<OrderDto>> getCurrentSellerOrders(
+    public ResponseEntity<Slice<OrderDto>> getCurrentSellerOrders(
             @RequestParam(required = false) OrderStatus status,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
             @RequestParam(defaultValue = "DESC") String sortDir,
+            @RequestParam(defaultValue = "EXACT") CountMode count,
             @AuthenticationPrincipal User user) {
         
         Sort.Direction direction = sortDir.equalsIgnoreCase("ASC") ? Sort.Direction.ASC : Sort.Direction.DESC;
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by(direction, sortBy));
         
-        Page<OrderDto> orders;
+        Slice<OrderDto> orders;
         if (status != null) {
-            orders = orderService.getOrdersBySellerAndStatus(user.getId(), status, pageRequest);
+            orders = orderService.getOrdersBySellerAndStatus(user.getId(), status, pageRequest, count);
         } else {
-            orders = orderService.getOrdersBySeller(user.getId(), pageRequest);
+            orders = orderService.getOrdersBySeller(user.getId(), pageRequest, count);
         }
         
         return ResponseEntity.ok(orders);
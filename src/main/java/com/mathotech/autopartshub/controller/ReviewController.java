@@ -1,5 +1,6 @@
 package com.mathotech.autopartshub.controller;
 
+import com.mathotech.autopartshub.dto.CountMode;
 import com.mathotech.autopartshub.dto.review.CreateProductReviewRequest;
 import com.mathotech.autopartshub.dto.review.CreateSellerReviewRequest;
 import com.mathotech.autopartshub.dto.review.ReviewDto;
@@ -8,15 +9,16 @@ import com.mathotech.autopartshub.model.User;
 import com.mathotech.autopartshub.service.ReviewService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/reviews")
@@ -54,45 +56,52 @@ public class ReviewController {
     }
 
     @GetMapping("/products/{listingId}")
-    public ResponseEntity<Page<ReviewDto>> getProductReviews(
+    public ResponseEntity<Slice<ReviewDto>> getProductReviews(
             @PathVariable Long listingId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "EXACT") CountMode count,
+            WebRequest request) {
         
         Sort sort = Sort.by(sortDir.equals("asc") ? Sort.Direction.ASC : Sort.Direction.DESC, sortBy);
         Pageable pageable = PageRequest.of(page, size, sort);
         
-        return ResponseEntity.ok(reviewService.getProductReviews(listingId, pageable));
+        return ConditionalGet.respond(request, reviewService.getProductReviewsEtag(listingId), ConditionalGet.REVIEWS,
+                () -> reviewService.getProductReviews(listingId, pageable, count));
     }
 
     @GetMapping("/sellers/{sellerId}")
-    public ResponseEntity<Page<ReviewDto>> getSellerReviews(
+    public ResponseEntity<Slice<ReviewDto>> getSellerReviews(
             @PathVariable Long sellerId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "EXACT") CountMode count,
+            WebRequest request) {
         
         Sort sort = Sort.by(sortDir.equals("asc") ? Sort.Direction.ASC : Sort.Direction.DESC, sortBy);
         Pageable pageable = PageRequest.of(page, size, sort);
         
-        return ResponseEntity.ok(reviewService.getSellerReviews(sellerId, pageable));
+        return ConditionalGet.respond(request, reviewService.getSellerReviewsEtag(sellerId), ConditionalGet.REVIEWS,
+                () -> reviewService.getSellerReviews(sellerId, pageable, count));
     }
 
     @GetMapping("/user")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Page<ReviewDto>> getUserReviews(
+    public ResponseEntity<Slice<ReviewDto>> getUserReviews(
             @AuthenticationPrincipal User user,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "EXACT") CountMode count) {
         
         Sort sort = Sort.by(sortDir.equals("asc") ? Sort.Direction.ASC : Sort.Direction.DESC, sortBy);
         Pageable pageable = PageRequest.of(page, size, sort);
         
-        return ResponseEntity.ok(reviewService.getUserReviews(user.getId(), pageable));
+        return ResponseEntity.ok(reviewService.getUserReviews(user.getId(), pageable, count));
     }
 }
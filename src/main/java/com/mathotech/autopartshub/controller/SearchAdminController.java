@@ -0,0 +1,28 @@
+package com.mathotech.autopartshub.controller;
+
+import com.mathotech.autopartshub.dto.listing.ReindexStatusDto;
+import com.mathotech.autopartshub.service.ListingReindexService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/search")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ROLE_ADMIN')")
+public class SearchAdminController {
+
+    private final ListingReindexService listingReindexService;
+
+    @PostMapping("/listings/reindex")
+    public ResponseEntity<ReindexStatusDto> startListingReindex() {
+        return new ResponseEntity<>(listingReindexService.startReindex(), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/listings/reindex")
+    public ResponseEntity<ReindexStatusDto> getListingReindexStatus() {
+        return ResponseEntity.ok(listingReindexService.getStatus());
+    }
+}
@@ -0,0 +1,73 @@
+package com.mathotech.autopartshub.controller;
+
+import com.mathotech.autopartshub.dto.FitCheckRequest;
+import com.mathotech.autopartshub.dto.FitCheckResultDto;
+import com.mathotech.autopartshub.dto.UserVehicleDto;
+import com.mathotech.autopartshub.dto.listing.ListingSummaryDto;
+import com.mathotech.autopartshub.model.User;
+import com.mathotech.autopartshub.service.GarageFeedService;
+import com.mathotech.autopartshub.service.UserVehicleService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/garage")
+@RequiredArgsConstructor
+public class UserVehicleController {
+
+    private final UserVehicleService userVehicleService;
+    private final GarageFeedService garageFeedService;
+
+    @GetMapping
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<UserVehicleDto>> getGarage(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(userVehicleService.getGarage(user.getId()));
+    }
+
+    /**
+     * In-stock parts fitting the user's saved vehicles, best sellers first.
+     */
+    @GetMapping("/feed")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<ListingSummaryDto>> getFeed(
+            @RequestParam(defaultValue = "20") int size,
+            @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(garageFeedService.getFeed(user.getId(), size));
+    }
+
+    @PostMapping
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<UserVehicleDto> addVehicle(
+            @Valid @RequestBody UserVehicleDto vehicleDto,
+            @AuthenticationPrincipal User user) {
+        return new ResponseEntity<>(userVehicleService.addVehicle(user.getId(), vehicleDto), HttpStatus.CREATED);
+    }
+
+    @DeleteMapping("/{vehicleId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Void> removeVehicle(
+            @PathVariable Long vehicleId,
+            @AuthenticationPrincipal User user) {
+        userVehicleService.removeVehicle(user.getId(), vehicleId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Fit flags for a page of search results in one call, for "fits your car" badges.
+     */
+    @PostMapping("/{vehicleId}/fit-check")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<FitCheckResultDto> checkFit(
+            @PathVariable Long vehicleId,
+            @Valid @RequestBody FitCheckRequest request,
+            @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(userVehicleService.checkFit(user.getId(), vehicleId, request.getListingIds()));
+    }
+}
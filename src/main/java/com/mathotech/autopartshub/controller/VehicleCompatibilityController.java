@@ -0,0 +1,40 @@
+package com.mathotech.autopartshub.controller;
+
+import com.mathotech.autopartshub.dto.CountMode;
+import com.mathotech.autopartshub.dto.VinDecodeDto;
+import com.mathotech.autopartshub.dto.listing.ListingSummaryDto;
+import com.mathotech.autopartshub.service.ListingService;
+import com.mathotech.autopartshub.service.VinDecoderService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/vehicles")
+@RequiredArgsConstructor
+public class VehicleCompatibilityController {
+
+    private final VinDecoderService vinDecoderService;
+    private final ListingService listingService;
+
+    @GetMapping("/vin/{vin}")
+    public ResponseEntity<VinDecodeDto> decodeVin(@PathVariable String vin) {
+        return ResponseEntity.ok(vinDecoderService.decode(vin));
+    }
+
+    @GetMapping("/vin/{vin}/listings")
+    public ResponseEntity<Slice<ListingSummaryDto>> getListingsByVin(
+            @PathVariable String vin,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            @RequestParam(defaultValue = "EXACT") CountMode count) {
+        Sort.Direction direction = sortDir.equalsIgnoreCase("ASC") ? Sort.Direction.ASC : Sort.Direction.DESC;
+        PageRequest pageRequest = PageRequest.of(page, size, Sort.by(direction, sortBy));
+        return ResponseEntity.ok(listingService.getListingsByVin(vin, pageRequest, count));
+    }
+}
@@ -0,0 +1,28 @@
+package com.mathotech.autopartshub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Counters for one cache on this node since it started.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheStatsDto {
+    private String name;
+    private long localSize;
+    private long localHits;
+    private long remoteHits;
+    private long misses;
+    private double hitRatio;
+    // Misses that waited for another caller's load instead of loading
+    private long coalesced;
+    private long earlyRefreshes;
+    // Local entries dropped for size or age
+    private long evictions;
+    private long remoteErrors;
+}
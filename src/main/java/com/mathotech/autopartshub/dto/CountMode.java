@@ -0,0 +1,10 @@
+package com.mathotech.autopartshub.dto;
+
+/**
+ * How a paged endpoint works out its total, selected per request with the {@code count} parameter.
+ */
+public enum CountMode {
+    EXACT,        // Page with a COUNT query per request
+    NONE,         // Slice: content and hasNext only, no COUNT query
+    APPROXIMATE   // Page whose total comes from a cached counter refreshed in the background
+}
@@ -0,0 +1,17 @@
+package com.mathotech.autopartshub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FitCheckResultDto {
+    private Long vehicleId;
+    private Map<Long, Boolean> fits;  // Listing ID to whether it fits, in request order
+}
@@ -0,0 +1,31 @@
+package com.mathotech.autopartshub.dto;
+
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserVehicleDto {
+    private Long id;
+
+    // Either a VIN, or make, model and year
+    @Size(min = 17, max = 17, message = "A VIN has exactly 17 characters")
+    private String vin;
+
+    private String make;
+    private String model;
+    private String engine;
+    private Integer year;
+
+    @Size(max = 50, message = "Nickname must be at most 50 characters")
+    private String nickname;
+
+    private LocalDateTime createdAt;
+}
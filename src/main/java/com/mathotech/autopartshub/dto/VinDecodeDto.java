@@ -0,0 +1,20 @@
+package com.mathotech.autopartshub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class VinDecodeDto {
+    private String vin;
+    private String wmi;
+    private String make;
+    private String model;   // Null when the descriptor section isn't in the bundled data
+    private String engine;
+    private Integer year;
+    private boolean checkDigitValid;  // Only mandatory for North American VINs
+}
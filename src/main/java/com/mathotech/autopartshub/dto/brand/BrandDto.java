@@ -22,4 +22,6 @@ public class BrandDto {
     private String description;
     
     private String logoUrl;
+
+    private Long activeListingCount;
 }
@@ -17,6 +17,9 @@ public class CategoryDto {
     private String name;
     private String description;
     private Long parentId;
+
+    // Active listings in this category and its subcategories
+    private Long activeListingCount;
     
     @Builder.Default
     private List<CategoryDto> subcategories = new ArrayList<>();
@@ -0,0 +1,21 @@
+package com.mathotech.autopartshub.dto.listing;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Slice;
+
+import java.util.Map;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FacetedListingsDto {
+    private Slice<ListingSummaryDto> listings;
+
+    // Facet name (category, brand, condition, price, rating) to value to matching listings, each
+    // counted with the other facets' selections applied. Null while the facet index is loading.
+    private Map<String, Map<String, Long>> facets;
+}
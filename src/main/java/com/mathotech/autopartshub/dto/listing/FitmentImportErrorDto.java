@@ -0,0 +1,15 @@
+package com.mathotech.autopartshub.dto.listing;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FitmentImportErrorDto {
+    private long row;  // Spreadsheet row number; the header is row 1
+    private String message;
+}
@@ -0,0 +1,25 @@
+package com.mathotech.autopartshub.dto.listing;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FitmentImportResultDto {
+    private long rowsRead;
+    private long rowsRejected;
+    private long mappingsCreated;
+    private long duplicateMappings;  // Already on the listing, or repeated within the file
+    private long listingsAffected;
+    private long durationMs;
+    @Builder.Default
+    private List<FitmentImportErrorDto> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+}
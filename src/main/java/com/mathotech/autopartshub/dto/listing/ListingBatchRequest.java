@@ -0,0 +1,20 @@
+package com.mathotech.autopartshub.dto.listing;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ListingBatchRequest {
+    @NotEmpty(message = "At least one listing ID is required")
+    @Size(max = 500, message = "At most 500 listings can be fetched at once")
+    private List<Long> ids;
+}
@@ -0,0 +1,42 @@
+package com.mathotech.autopartshub.dto.listing;
+
+import com.mathotech.autopartshub.model.Condition;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Filter shared by the ListingController browse endpoints; null fields are not applied.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ListingBrowseFilter {
+    @Builder.Default
+    private boolean activeOnly = true;
+    private Long categoryId;
+    private Long brandId;
+    private Long sellerId;
+    private Condition condition;
+
+    // Facet selections: any of the values within a facet, all facets together
+    private List<Long> categoryIds;
+    private List<Long> brandIds;
+    private List<Condition> conditions;
+    private List<PriceBucket> priceBuckets;
+    private Integer minRating;
+
+    // Vehicle fitment; applied only when make, model and year are all present
+    private String make;
+    private String model;
+    private Integer year;
+    private String engine;
+
+    // Catalog ids resolved from model and engine by ListingService before querying
+    private Integer modelId;
+    private Integer engineId;
+}
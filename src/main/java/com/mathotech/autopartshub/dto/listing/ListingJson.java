@@ -0,0 +1,20 @@
+package com.mathotech.autopartshub.dto.listing;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A listing detail response already serialized to JSON, with its ETag. The ETag is built from the
+ * versions the body was rendered from (the listing's and its seller's update times and the
+ * reference data version), not from the bytes.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ListingJson {
+    private byte[] body;
+    private String etag;
+}
@@ -0,0 +1,28 @@
+package com.mathotech.autopartshub.dto.listing;
+
+import com.mathotech.autopartshub.model.Condition;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ListingSearchCriteria {
+    private String query;
+    private Long categoryId;
+    private Long brandId;
+    private Condition condition;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+
+    // Vehicle fitment filter; year is required when make/model are given
+    private String make;
+    private String model;
+    private Integer year;
+    private String engine;
+}
@@ -0,0 +1,35 @@
+package com.mathotech.autopartshub.dto.listing;
+
+import com.mathotech.autopartshub.model.Condition;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A listing as shown in list views. Built directly by the JPQL constructor expression in
+ * {@code ListingRepository.SUMMARY_QUERY}, so the field order here is that constructor's
+ * argument order.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ListingSummaryDto {
+    private Long id;
+    private String title;
+    private BigDecimal price;
+    private Condition condition;
+    private Integer quantity;
+    private BigDecimal averageRating;
+    private Integer totalRatings;
+    private boolean featured;
+    private boolean active;
+    private LocalDateTime createdAt;
+    private Long sellerId;
+    private String sellerBusinessName;
+    private String primaryImageUrl;
+}
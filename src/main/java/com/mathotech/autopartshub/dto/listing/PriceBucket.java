@@ -0,0 +1,41 @@
+package com.mathotech.autopartshub.dto.listing;
+
+import java.math.BigDecimal;
+
+/**
+ * Price bands (ZAR) for the listing price facet. The lower bound is inclusive, the upper exclusive.
+ */
+public enum PriceBucket {
+    UNDER_100(null, "100"),
+    FROM_100_TO_250("100", "250"),
+    FROM_250_TO_500("250", "500"),
+    FROM_500_TO_1000("500", "1000"),
+    FROM_1000_TO_2500("1000", "2500"),
+    FROM_2500_TO_5000("2500", "5000"),
+    OVER_5000("5000", null);
+
+    private final BigDecimal min;
+    private final BigDecimal max;
+
+    PriceBucket(String min, String max) {
+        this.min = min != null ? new BigDecimal(min) : null;
+        this.max = max != null ? new BigDecimal(max) : null;
+    }
+
+    public BigDecimal getMin() {
+        return min;
+    }
+
+    public BigDecimal getMax() {
+        return max;
+    }
+
+    public static PriceBucket of(BigDecimal price) {
+        for (PriceBucket bucket : values()) {
+            if (bucket.max == null || price.compareTo(bucket.max) < 0) {
+                return bucket;
+            }
+        }
+        return OVER_5000;
+    }
+}
@@ -0,0 +1,24 @@
+package com.mathotech.autopartshub.dto.listing;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReindexStatusDto {
+    private String indexName;
+    private String state;  // RUNNING, COMPLETED or FAILED
+    private long totalListings;
+    private long indexedListings;
+    private long failedListings;
+    private double docsPerSecond;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
@@ -17,6 +17,7 @@ import java.util.List;
 @NoArgsConstructor
 public class OrderDto {
     private Long id;
+    private String orderNumber;
     private Long buyerId;
     private String buyerName; // Combination of buyer's first name and last name
     private String buyerEmail;
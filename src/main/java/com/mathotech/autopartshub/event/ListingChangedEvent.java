@@ -0,0 +1,24 @@
+package com.mathotech.autopartshub.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published by ListingService whenever a listing is written. Listeners that need the
+ * committed state should use {@code @TransactionalEventListener} and reload by id.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ListingChangedEvent {
+
+    private final Long listingId;
+    private final ChangeType type;
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
@@ -0,0 +1,20 @@
+package com.mathotech.autopartshub.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collection;
+
+/**
+ * Published once per stock change by InventoryService and HotStockLedger, naming every listing
+ * whose quantity moved. Only quantity changes, so listeners that index other listing fields
+ * (search, facets, fitment) don't subscribe; {@link ListingChangedEvent} covers everything else.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ListingStockChangedEvent {
+
+    private final Collection<Long> listingIds;
+}
@@ -0,0 +1,18 @@
+package com.mathotech.autopartshub.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published by ReferenceDataService on each node when it replaces its category and brand
+ * snapshot with a newer version. Listeners run on the loading thread, after the new snapshot
+ * is visible to readers.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ReferenceDataChangedEvent {
+
+    private final long version;
+}
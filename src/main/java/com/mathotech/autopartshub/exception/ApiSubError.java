@@ -21,3 +21,13 @@ class ApiValidationError extends ApiSubError {
         this.message = message;
     }
 }
+
+@Data
+@EqualsAndHashCode(callSuper = false)
+@AllArgsConstructor
+class ApiStockError extends ApiSubError {
+    private Long listingId;
+    private int requested;
+    private int available;
+    private String message;
+}
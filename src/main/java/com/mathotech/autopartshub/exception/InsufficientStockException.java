@@ -0,0 +1,37 @@
+package com.mathotech.autopartshub.exception;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Thrown when an order asks for more of a listing than is available, or for a listing that is no
+ * longer active. Carries every line that fell short, not just the first.
+ */
+@Getter
+public class InsufficientStockException extends RuntimeException {
+
+    private final List<Shortfall> shortfalls;
+
+    public InsufficientStockException(List<Shortfall> shortfalls) {
+        super("Not enough stock for " + shortfalls.size() + (shortfalls.size() == 1 ? " listing" : " listings"));
+        this.shortfalls = shortfalls;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Shortfall {
+        private final Long listingId;
+        private final String title;
+        private final int requested;
+        private final int available;
+        private final boolean active;
+
+        public String getMessage() {
+            return active
+                    ? "Only " + available + " of " + requested + " available for: " + title
+                    : "Listing is not active: " + title;
+        }
+    }
+}
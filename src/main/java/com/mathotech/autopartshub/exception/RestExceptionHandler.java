@@ -77,6 +77,23 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
         return buildResponseEntity(apiError);
     }
     
+    @ExceptionHandler(InsufficientStockException.class)
+    protected ResponseEntity<Object> handleInsufficientStock(InsufficientStockException ex) {
+        List<ApiSubError> subErrors = ex.getShortfalls().stream()
+                .map(shortfall -> new ApiStockError(
+                        shortfall.getListingId(),
+                        shortfall.getRequested(),
+                        shortfall.getAvailable(),
+                        shortfall.getMessage()
+                ))
+                .collect(Collectors.toList());
+        
+        ApiError apiError = new ApiError(HttpStatus.CONFLICT);
+        apiError.setMessage(ex.getMessage());
+        apiError.setSubErrors(subErrors);
+        return buildResponseEntity(apiError);
+    }
+    
     @ExceptionHandler(BadCredentialsException.class)
     protected ResponseEntity<Object> handleBadCredentials(BadCredentialsException ex) {
         ApiError apiError = new ApiError(HttpStatus.UNAUTHORIZED);
@@ -101,6 +118,14 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
         return buildResponseEntity(apiError);
     }
     
+    @ExceptionHandler(IllegalArgumentException.class)
+    protected ResponseEntity<Object> handleIllegalArgument(IllegalArgumentException ex) {
+        ApiError apiError = new ApiError(HttpStatus.BAD_REQUEST);
+        apiError.setMessage("Invalid request");
+        apiError.setDebugMessage(ex.getMessage());
+        return buildResponseEntity(apiError);
+    }
+    
     @ExceptionHandler(ConstraintViolationException.class)
     protected ResponseEntity<Object> handleConstraintViolation(ConstraintViolationException ex) {
         List<ApiSubError> subErrors = ex.getConstraintViolations().stream()
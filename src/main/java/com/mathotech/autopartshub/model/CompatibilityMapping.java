@@ -0,0 +1,65 @@
+package com.mathotech.autopartshub.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "compatibility_mappings")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class CompatibilityMapping {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Excluded to avoid recursing through Listing.compatibilityMappings
+    @ManyToOne
+    @JoinColumn(name = "listing_id", nullable = false)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Listing listing;
+
+    @NotNull
+    @ManyToOne
+    @JoinColumn(name = "make_id", nullable = false)
+    private VehicleMake make;
+
+    @NotNull
+    @ManyToOne
+    @JoinColumn(name = "model_id", nullable = false)
+    private VehicleModel model;
+
+    @NotNull
+    @Column(name = "year_start", nullable = false)
+    private Integer yearStart;
+
+    @NotNull
+    @Column(name = "year_end", nullable = false)
+    private Integer yearEnd;
+
+    @ManyToOne
+    @JoinColumn(name = "engine_id")
+    private VehicleEngine engine;
+
+    @ManyToOne
+    @JoinColumn(name = "trim_id")
+    private VehicleTrim trim;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -71,8 +71,10 @@ public class Listing {
     @Column(name = "aftermarket_part_number")
     private String aftermarketPartNumber;
 
+    // Written only on insert; later changes go through InventoryService as relative SQL updates,
+    // so saving a loaded listing can't put back stock sold since it was read
     @NotNull
-    @Column(nullable = false)
+    @Column(nullable = false, updatable = false)
     private Integer quantity;
 
     @Size(max = 500)
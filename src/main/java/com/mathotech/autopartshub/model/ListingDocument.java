@@ -0,0 +1,125 @@
+package com.mathotech.autopartshub.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.InnerField;
+import org.springframework.data.elasticsearch.annotations.MultiField;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search-side projection of {@link Listing}. Kept in sync by ListingSearchService.
+ */
+@Document(indexName = "listings", createIndex = false)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListingDocument {
+
+    @Id
+    private Long id;
+
+    @Field(type = FieldType.Text)
+    private String title;
+
+    @Field(type = FieldType.Text)
+    private String description;
+
+    @MultiField(mainField = @Field(type = FieldType.Text),
+            otherFields = @InnerField(suffix = "raw", type = FieldType.Keyword))
+    private String oemPartNumber;
+
+    @MultiField(mainField = @Field(type = FieldType.Text),
+            otherFields = @InnerField(suffix = "raw", type = FieldType.Keyword))
+    private String aftermarketPartNumber;
+
+    @Field(type = FieldType.Long)
+    private Long sellerId;
+
+    @Field(type = FieldType.Text)
+    private String sellerBusinessName;
+
+    @Field(type = FieldType.Long)
+    private Long categoryId;
+
+    @Field(type = FieldType.Text)
+    private String categoryName;
+
+    @Field(type = FieldType.Long)
+    private Long brandId;
+
+    @Field(type = FieldType.Text)
+    private String brandName;
+
+    @Field(type = FieldType.Keyword)
+    private Condition condition;
+
+    @Field(type = FieldType.Double)
+    private Double price;
+
+    @Field(type = FieldType.Integer)
+    private Integer quantity;
+
+    @Field(type = FieldType.Double)
+    private Double averageRating;
+
+    @Field(type = FieldType.Integer)
+    private Integer totalRatings;
+
+    @Field(type = FieldType.Boolean)
+    private boolean active;
+
+    @Field(type = FieldType.Boolean)
+    private boolean featured;
+
+    @Field(type = FieldType.Keyword, index = false)
+    private String primaryImageUrl;
+
+    @Builder.Default
+    @Field(type = FieldType.Nested)
+    private List<Fitment> compatibilityMappings = new ArrayList<>();
+
+    @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second_fraction)
+    private LocalDateTime createdAt;
+
+    @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second_fraction)
+    private LocalDateTime updatedAt;
+
+    /**
+     * Fitments reference the vehicle catalog by id so they can be matched with term queries.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Fitment {
+
+        @Field(type = FieldType.Integer)
+        private Integer makeId;
+
+        @Field(type = FieldType.Integer)
+        private Integer modelId;
+
+        @Field(type = FieldType.Integer)
+        private Integer yearStart;
+
+        @Field(type = FieldType.Integer)
+        private Integer yearEnd;
+
+        @Field(type = FieldType.Integer)
+        private Integer engineId;
+
+        @Field(type = FieldType.Integer)
+        private Integer trimId;
+    }
+}
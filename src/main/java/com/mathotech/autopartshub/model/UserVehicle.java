@@ -0,0 +1,54 @@
+package com.mathotech.autopartshub.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "user_vehicles")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class UserVehicle {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne
+    @JoinColumn(name = "make_id", nullable = false)
+    private VehicleMake make;
+
+    @ManyToOne
+    @JoinColumn(name = "model_id", nullable = false)
+    private VehicleModel model;
+
+    @ManyToOne
+    @JoinColumn(name = "engine_id")
+    private VehicleEngine engine;
+
+    @Column(nullable = false)
+    private Integer year;
+
+    @Column(length = 50)
+    private String nickname;
+
+    @Column(length = 17)
+    private String vin;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -2,6 +2,7 @@ package com.mathotech.autopartshub.repository;
 
 import com.mathotech.autopartshub.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,4 +15,16 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     List<Category> findByParentIsNull();
     
     List<Category> findByParentId(Long parentId);
+
+    @Query("SELECT c.id AS id, p.id AS parentId FROM Category c LEFT JOIN c.parent p")
+    List<CategoryNode> findAllNodes();
+
+    /**
+     * Just the hierarchy, for building the in-memory category tree.
+     */
+    interface CategoryNode {
+        Long getId();
+
+        Long getParentId();
+    }
 }
@@ -2,13 +2,52 @@ package com.mathotech.autopartshub.repository;
 
 import com.mathotech.autopartshub.model.CompatibilityMapping;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface CompatibilityMappingRepository extends JpaRepository<CompatibilityMapping, Long> {
     List<CompatibilityMapping> findByListingId(Long listingId);
-    
+
     void deleteByListingId(Long listingId);
+
+    @Query("SELECT cm.listing.id AS listingId, cm.model.id AS modelId, e.id AS engineId, " +
+           "cm.yearStart AS yearStart, cm.yearEnd AS yearEnd " +
+           "FROM CompatibilityMapping cm LEFT JOIN cm.engine e WHERE cm.listing.active = true")
+    List<FitmentRow> findActiveFitments();
+
+    @Query("SELECT cm.listing.id AS listingId, cm.model.id AS modelId, e.id AS engineId, " +
+           "cm.yearStart AS yearStart, cm.yearEnd AS yearEnd " +
+           "FROM CompatibilityMapping cm LEFT JOIN cm.engine e " +
+           "WHERE cm.listing.id = :listingId AND cm.listing.active = true")
+    List<FitmentRow> findActiveFitmentsByListingId(@Param("listingId") Long listingId);
+
+    @Query("SELECT DISTINCT cm.listing.id FROM CompatibilityMapping cm LEFT JOIN cm.engine e " +
+           "WHERE cm.listing.id IN :listingIds AND cm.listing.active = true AND cm.model.id = :modelId " +
+           "AND :year BETWEEN cm.yearStart AND cm.yearEnd " +
+           "AND (:engineId IS NULL OR e.id = :engineId)")
+    List<Long> findFittingListingIds(
+            @Param("listingIds") Collection<Long> listingIds,
+            @Param("modelId") Integer modelId,
+            @Param("year") Integer year,
+            @Param("engineId") Integer engineId);
+
+    /**
+     * Just the columns the fitment index needs, without loading listings.
+     */
+    interface FitmentRow {
+        Long getListingId();
+
+        Integer getModelId();
+
+        Integer getEngineId();
+
+        Integer getYearStart();
+
+        Integer getYearEnd();
+    }
 }
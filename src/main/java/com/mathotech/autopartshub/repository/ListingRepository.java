@@ -0,0 +1,120 @@
+package com.mathotech.autopartshub.repository;
+
+import com.mathotech.autopartshub.dto.listing.ListingSummaryDto;
+import com.mathotech.autopartshub.model.Listing;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ListingRepository extends JpaRepository<Listing, Long>, ListingRepositoryCustom {
+
+    /**
+     * List views read this projection instead of Listing entities: one statement per page, with
+     * no description, category or brand rows, and no lazy loads of images or fitments while
+     * mapping. Callers append a WHERE clause on alias {@code l}.
+     */
+    String SUMMARY_QUERY = "SELECT new com.mathotech.autopartshub.dto.listing.ListingSummaryDto(" +
+            "l.id, l.title, l.price, l.condition, l.quantity, l.averageRating, l.totalRatings, " +
+            "l.featured, l.active, l.createdAt, s.id, s.businessName, i.imageUrl) " +
+            "FROM Listing l JOIN l.seller s LEFT JOIN l.images i ON i.primary = true";
+
+    // Browse finders return Slices; totals are counted separately so callers can skip them
+    @Query(SUMMARY_QUERY + " WHERE l.active = true")
+    Slice<ListingSummaryDto> findSummariesByActiveTrue(Pageable pageable);
+
+    long countByActiveTrue();
+
+    @Query(SUMMARY_QUERY + " WHERE l.category.id IN :categoryIds AND l.active = true")
+    Slice<ListingSummaryDto> findSummariesByCategoryIdInAndActiveTrue(
+            @Param("categoryIds") Collection<Long> categoryIds, Pageable pageable);
+
+    long countByCategoryIdInAndActiveTrue(Collection<Long> categoryIds);
+
+    @Query(SUMMARY_QUERY + " WHERE l.brand.id = :brandId AND l.active = true")
+    Slice<ListingSummaryDto> findSummariesByBrandIdAndActiveTrue(@Param("brandId") Long brandId, Pageable pageable);
+
+    long countByBrandIdAndActiveTrue(Long brandId);
+
+    @Query(SUMMARY_QUERY + " WHERE s.id = :sellerId")
+    Slice<ListingSummaryDto> findSummariesBySellerId(@Param("sellerId") Long sellerId, Pageable pageable);
+
+    long countBySellerId(Long sellerId);
+
+    List<Listing> findByFeaturedTrueAndActiveTrue();
+
+    // Listings with their sellers in one statement, for building order items
+    @Query("SELECT l FROM Listing l JOIN FETCH l.seller WHERE l.id IN :ids")
+    List<Listing> findAllWithSellerByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SUMMARY_QUERY + " WHERE l.id IN :ids AND l.active = true")
+    Slice<ListingSummaryDto> findSummariesByIdInAndActiveTrue(@Param("ids") Collection<Long> ids, Pageable pageable);
+
+    @Query(SUMMARY_QUERY + " WHERE l.id IN :ids")
+    List<ListingSummaryDto> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // EXISTS rather than JOIN ... DISTINCT, which Postgres cannot combine with sorting on a column
+    // outside the select list
+    @Query(SUMMARY_QUERY + " WHERE l.active = true AND EXISTS (SELECT 1 FROM CompatibilityMapping cm " +
+           "WHERE cm.listing = l AND cm.model.id = :modelId " +
+           "AND :year BETWEEN cm.yearStart AND cm.yearEnd " +
+           "AND (:engineId IS NULL OR cm.engine.id = :engineId))")
+    Slice<ListingSummaryDto> findSummariesByVehicleCompatibility(
+            @Param("modelId") Integer modelId,
+            @Param("year") Integer year,
+            @Param("engineId") Integer engineId,
+            Pageable pageable);
+
+    @Query("SELECT COUNT(DISTINCT l) FROM Listing l JOIN l.compatibilityMappings cm LEFT JOIN cm.engine e " +
+           "WHERE l.active = true AND cm.model.id = :modelId " +
+           "AND :year BETWEEN cm.yearStart AND cm.yearEnd " +
+           "AND (:engineId IS NULL OR e.id = :engineId)")
+    long countByVehicleCompatibility(
+            @Param("modelId") Integer modelId,
+            @Param("year") Integer year,
+            @Param("engineId") Integer engineId);
+
+    // The timestamps a listing detail response depends on, without loading the listing
+    @Query("SELECT l.updatedAt AS updatedAt, s.updatedAt AS sellerUpdatedAt FROM Listing l JOIN l.seller s WHERE l.id = :id")
+    Optional<ListingVersion> findVersionById(@Param("id") Long id);
+
+    // Current stock for listings whose other fields came from the search index
+    @Query("SELECT l.id AS id, l.quantity AS quantity FROM Listing l WHERE l.id IN :ids")
+    List<ListingStock> findStockByIdIn(@Param("ids") Collection<Long> ids);
+
+    // For changes to a listing's child rows, which don't dirty the listing itself
+    @Modifying
+    @Query("UPDATE Listing l SET l.updatedAt = CURRENT_TIMESTAMP WHERE l.id = :id")
+    void touch(@Param("id") Long id);
+
+    /**
+     * Writes only the rating summary, so a review can't put back other columns of a stale row.
+     */
+    @Modifying
+    @Query("UPDATE Listing l SET l.averageRating = :averageRating, l.totalRatings = :totalRatings, " +
+            "l.updatedAt = CURRENT_TIMESTAMP WHERE l.id = :id")
+    void updateRating(@Param("id") Long id, @Param("averageRating") BigDecimal averageRating,
+                      @Param("totalRatings") Integer totalRatings);
+
+    interface ListingVersion {
+        LocalDateTime getUpdatedAt();
+
+        LocalDateTime getSellerUpdatedAt();
+    }
+
+    interface ListingStock {
+        Long getId();
+
+        Integer getQuantity();
+    }
+}
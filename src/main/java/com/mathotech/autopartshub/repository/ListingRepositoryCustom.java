@@ -0,0 +1,26 @@
+package com.mathotech.autopartshub.repository;
+
+import com.mathotech.autopartshub.dto.listing.ListingBrowseFilter;
+import com.mathotech.autopartshub.dto.listing.ListingSummaryDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+public interface ListingRepositoryCustom {
+
+    /**
+     * Seeks past (lastValue, lastId) in the given order instead of using OFFSET. Pass a null
+     * lastId for the first page.
+     */
+    List<ListingSummaryDto> findPageAfter(ListingBrowseFilter filter, ListingSortKey sortKey, Sort.Direction direction,
+                                Object lastValue, Long lastId, int limit);
+
+    /**
+     * Offset page for any combination of browse filters, sorted by the pageable's sort.
+     */
+    Slice<ListingSummaryDto> findByFilter(ListingBrowseFilter filter, Pageable pageable);
+
+    long countByFilter(ListingBrowseFilter filter);
+}
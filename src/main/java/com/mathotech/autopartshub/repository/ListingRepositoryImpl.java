@@ -0,0 +1,149 @@
+package com.mathotech.autopartshub.repository;
+
+import com.mathotech.autopartshub.dto.listing.ListingBrowseFilter;
+import com.mathotech.autopartshub.dto.listing.ListingSummaryDto;
+import com.mathotech.autopartshub.dto.listing.PriceBucket;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.util.CollectionUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ListingRepositoryImpl implements ListingRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ListingSummaryDto> findPageAfter(ListingBrowseFilter filter, ListingSortKey sortKey,
+                                                 Sort.Direction direction, Object lastValue, Long lastId, int limit) {
+        StringBuilder jpql = new StringBuilder(ListingRepository.SUMMARY_QUERY).append(" WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+
+        appendFilter(jpql, params, filter);
+
+        String expression = sortKey.getExpression();
+        String order = direction.isAscending() ? "ASC" : "DESC";
+        if (lastId != null) {
+            String comparison = direction.isAscending() ? ">" : "<";
+            jpql.append(" AND (").append(expression).append(' ').append(comparison).append(" :lastValue")
+                    .append(" OR (").append(expression).append(" = :lastValue AND l.id ")
+                    .append(comparison).append(" :lastId))");
+            params.put("lastValue", lastValue);
+            params.put("lastId", lastId);
+        }
+        jpql.append(" ORDER BY ").append(expression).append(' ').append(order)
+                .append(", l.id ").append(order);
+
+        TypedQuery<ListingSummaryDto> query = entityManager.createQuery(jpql.toString(), ListingSummaryDto.class);
+        params.forEach(query::setParameter);
+        query.setMaxResults(limit);
+
+        return query.getResultList();
+    }
+
+    @Override
+    public Slice<ListingSummaryDto> findByFilter(ListingBrowseFilter filter, Pageable pageable) {
+        StringBuilder jpql = new StringBuilder(ListingRepository.SUMMARY_QUERY).append(" WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+        appendFilter(jpql, params, filter);
+
+        TypedQuery<ListingSummaryDto> query = entityManager.createQuery(
+                QueryUtils.applySorting(jpql.toString(), pageable.getSort(), "l"), ListingSummaryDto.class);
+        params.forEach(query::setParameter);
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize() + 1);
+
+        // One extra row tells whether there is a next page without counting
+        List<ListingSummaryDto> rows = query.getResultList();
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    @Override
+    public long countByFilter(ListingBrowseFilter filter) {
+        StringBuilder jpql = new StringBuilder("SELECT COUNT(l) FROM Listing l WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+        appendFilter(jpql, params, filter);
+
+        TypedQuery<Long> query = entityManager.createQuery(jpql.toString(), Long.class);
+        params.forEach(query::setParameter);
+        return query.getSingleResult();
+    }
+
+    static void appendFilter(StringBuilder jpql, Map<String, Object> params, ListingBrowseFilter filter) {
+        if (filter.isActiveOnly()) {
+            jpql.append(" AND l.active = true");
+        }
+        if (filter.getCategoryId() != null) {
+            jpql.append(" AND l.category.id = :categoryId");
+            params.put("categoryId", filter.getCategoryId());
+        }
+        if (filter.getBrandId() != null) {
+            jpql.append(" AND l.brand.id = :brandId");
+            params.put("brandId", filter.getBrandId());
+        }
+        if (filter.getSellerId() != null) {
+            jpql.append(" AND l.seller.id = :sellerId");
+            params.put("sellerId", filter.getSellerId());
+        }
+        if (filter.getCondition() != null) {
+            jpql.append(" AND l.condition = :condition");
+            params.put("condition", filter.getCondition());
+        }
+        if (!CollectionUtils.isEmpty(filter.getCategoryIds())) {
+            jpql.append(" AND l.category.id IN :categoryIds");
+            params.put("categoryIds", filter.getCategoryIds());
+        }
+        if (!CollectionUtils.isEmpty(filter.getBrandIds())) {
+            jpql.append(" AND l.brand.id IN :brandIds");
+            params.put("brandIds", filter.getBrandIds());
+        }
+        if (!CollectionUtils.isEmpty(filter.getConditions())) {
+            jpql.append(" AND l.condition IN :conditions");
+            params.put("conditions", filter.getConditions());
+        }
+        if (!CollectionUtils.isEmpty(filter.getPriceBuckets())) {
+            List<String> ranges = new ArrayList<>();
+            for (PriceBucket bucket : filter.getPriceBuckets()) {
+                List<String> bounds = new ArrayList<>();
+                if (bucket.getMin() != null) {
+                    bounds.add("l.price >= :priceMin" + bucket.ordinal());
+                    params.put("priceMin" + bucket.ordinal(), bucket.getMin());
+                }
+                if (bucket.getMax() != null) {
+                    bounds.add("l.price < :priceMax" + bucket.ordinal());
+                    params.put("priceMax" + bucket.ordinal(), bucket.getMax());
+                }
+                ranges.add("(" + String.join(" AND ", bounds) + ")");
+            }
+            jpql.append(" AND (").append(String.join(" OR ", ranges)).append(")");
+        }
+        if (filter.getMinRating() != null) {
+            jpql.append(" AND COALESCE(l.averageRating, 0) >= :minRating");
+            params.put("minRating", BigDecimal.valueOf(filter.getMinRating()));
+        }
+        if (filter.getModelId() != null && filter.getYear() != null) {
+            // EXISTS rather than JOIN ... DISTINCT, which Postgres cannot combine with an ORDER BY expression
+            jpql.append(" AND EXISTS (SELECT 1 FROM CompatibilityMapping cm WHERE cm.listing = l")
+                    .append(" AND cm.model.id = :modelId AND :year BETWEEN cm.yearStart AND cm.yearEnd");
+            params.put("modelId", filter.getModelId());
+            params.put("year", filter.getYear());
+            if (filter.getEngineId() != null) {
+                jpql.append(" AND cm.engine.id = :engineId");
+                params.put("engineId", filter.getEngineId());
+            }
+            jpql.append(")");
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.mathotech.autopartshub.repository;
+
+import com.mathotech.autopartshub.dto.listing.ListingSummaryDto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Sort keys allowed for keyset pagination. Each one is backed by a composite (key, id) index
+ * from V2__Listing_keyset_indexes.sql, so seeking never falls back to a sort.
+ */
+public enum ListingSortKey {
+    CREATED_AT("createdAt", "l.createdAt"),
+    PRICE("price", "l.price"),
+    // Unrated listings sort as 0 so the key is never null
+    AVERAGE_RATING("averageRating", "COALESCE(l.averageRating, 0)");
+
+    private final String property;
+    private final String expression;
+
+    ListingSortKey(String property, String expression) {
+        this.property = property;
+        this.expression = expression;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public static Optional<ListingSortKey> fromProperty(String property) {
+        return Arrays.stream(values())
+                .filter(key -> key.property.equals(property))
+                .findFirst();
+    }
+
+    public Object extract(ListingSummaryDto listing) {
+        return switch (this) {
+            case CREATED_AT -> listing.getCreatedAt();
+            case PRICE -> listing.getPrice();
+            case AVERAGE_RATING -> listing.getAverageRating() != null ? listing.getAverageRating() : BigDecimal.ZERO;
+        };
+    }
+
+    public Object parse(String value) {
+        return switch (this) {
+            case CREATED_AT -> LocalDateTime.parse(value);
+            case PRICE, AVERAGE_RATING -> new BigDecimal(value);
+        };
+    }
+
+    public String format(Object value) {
+        return value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+    }
+}
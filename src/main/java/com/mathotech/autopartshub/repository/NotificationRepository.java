@@ -1,8 +1,8 @@
 package com.mathotech.autopartshub.repository;
 
 import com.mathotech.autopartshub.model.Notification;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -12,9 +12,11 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     
-    Page<Notification> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
+    Slice<Notification> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
     
-    Page<Notification> findByUserIdAndReadOrderByCreatedAtDesc(Long userId, boolean read, Pageable pageable);
+    long countByUserId(Long userId);
+    
+    Slice<Notification> findByUserIdAndReadOrderByCreatedAtDesc(Long userId, boolean read, Pageable pageable);
     
     long countByUserIdAndRead(Long userId, boolean read);
     
@@ -2,33 +2,53 @@ package com.mathotech.autopartshub.repository;
 
 import com.mathotech.autopartshub.model.Order;
 import com.mathotech.autopartshub.model.OrderStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
-    Page<Order> findByBuyerId(Long buyerId, Pageable pageable);
+    /**
+     * Locks the order for a status change, so concurrent changes, including the expiry sweep,
+     * each see the status the previous one left.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") Long id);
+    
+    Slice<Order> findByBuyerId(Long buyerId, Pageable pageable);
+    
+    long countByBuyerId(Long buyerId);
     
     @Query("SELECT o FROM Order o JOIN o.items i WHERE i.seller.id = :sellerId")
-    Page<Order> findBySellerId(@Param("sellerId") Long sellerId, Pageable pageable);
+    Slice<Order> findBySellerId(@Param("sellerId") Long sellerId, Pageable pageable);
+    
+    @Query("SELECT COUNT(o) FROM Order o JOIN o.items i WHERE i.seller.id = :sellerId")
+    long countBySellerId(@Param("sellerId") Long sellerId);
     
     Page<Order> findByStatus(OrderStatus status, Pageable pageable);
     
     @Query("SELECT o FROM Order o JOIN o.items i WHERE i.seller.id = :sellerId AND o.status = :status")
-    Page<Order> findBySellerIdAndStatus(
+    Slice<Order> findBySellerIdAndStatus(
             @Param("sellerId") Long sellerId, 
             @Param("status") OrderStatus status, 
             Pageable pageable);
     
-    Page<Order> findByBuyerIdAndStatus(Long buyerId, OrderStatus status, Pageable pageable);
+    @Query("SELECT COUNT(o) FROM Order o JOIN o.items i WHERE i.seller.id = :sellerId AND o.status = :status")
+    long countBySellerIdAndStatus(@Param("sellerId") Long sellerId, @Param("status") OrderStatus status);
+    
+    Slice<Order> findByBuyerIdAndStatus(Long buyerId, OrderStatus status, Pageable pageable);
     
     List<Order> findByStatusAndCreatedAtBefore(OrderStatus status, LocalDateTime cutoffTime);
     
@@ -2,13 +2,14 @@ package com.mathotech.autopartshub.repository;
 
 import com.mathotech.autopartshub.model.Review;
 import com.mathotech.autopartshub.model.ReviewType;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,11 +18,13 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     
     List<Review> findByTypeAndTargetId(ReviewType type, Long targetId);
     
-    Page<Review> findByTypeAndTargetId(ReviewType type, Long targetId, Pageable pageable);
+    Slice<Review> findByTypeAndTargetId(ReviewType type, Long targetId, Pageable pageable);
     
     List<Review> findByReviewerId(Long reviewerId);
     
-    Page<Review> findByReviewerId(Long reviewerId, Pageable pageable);
+    Slice<Review> findByReviewerId(Long reviewerId, Pageable pageable);
+    
+    long countByReviewerId(Long reviewerId);
     
     @Query("SELECT AVG(r.rating) FROM Review r WHERE r.type = :type AND r.targetId = :targetId")
     Double calculateAverageRating(@Param("type") ReviewType type, @Param("targetId") Long targetId);
@@ -36,4 +39,15 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     boolean existsByOrderItemIdAndReviewerId(
             @Param("orderItemId") Long orderItemId, 
             @Param("reviewerId") Long reviewerId);
+
+    // Changes whenever a review for the target is added, edited or removed
+    @Query("SELECT COUNT(r) AS count, MAX(r.updatedAt) AS lastUpdated FROM Review r " +
+           "WHERE r.type = :type AND r.targetId = :targetId")
+    ReviewStamp findStamp(@Param("type") ReviewType type, @Param("targetId") Long targetId);
+
+    interface ReviewStamp {
+        long getCount();
+
+        LocalDateTime getLastUpdated();
+    }
 }
@@ -0,0 +1,18 @@
+package com.mathotech.autopartshub.repository;
+
+import com.mathotech.autopartshub.model.UserVehicle;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserVehicleRepository extends JpaRepository<UserVehicle, Long> {
+
+    List<UserVehicle> findByUserIdOrderByCreatedAtAsc(Long userId);
+
+    Optional<UserVehicle> findByIdAndUserId(Long id, Long userId);
+
+    long countByUserId(Long userId);
+}
@@ -0,0 +1,25 @@
+package com.mathotech.autopartshub.repository;
+
+import com.mathotech.autopartshub.model.VehicleMake;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface VehicleMakeRepository extends JpaRepository<VehicleMake, Integer> {
+    Optional<VehicleMake> findByNormalizedName(String normalizedName);
+
+    @Query(value = "SELECT make_id FROM vehicle_make_aliases WHERE alias = :alias", nativeQuery = true)
+    Optional<Integer> findIdByAlias(@Param("alias") String alias);
+
+    // Concurrent writers may add the same make; the loser's insert is a no-op
+    @Modifying
+    @Query(value = "INSERT INTO vehicle_makes (name, normalized_name, created_at) " +
+                   "VALUES (:name, :normalizedName, NOW()) ON CONFLICT (normalized_name) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name, @Param("normalizedName") String normalizedName);
+}
@@ -0,0 +1,22 @@
+package com.mathotech.autopartshub.repository;
+
+import com.mathotech.autopartshub.model.VehicleModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface VehicleModelRepository extends JpaRepository<VehicleModel, Integer> {
+    Optional<VehicleModel> findByMakeIdAndNormalizedName(Integer makeId, String normalizedName);
+
+    @Modifying
+    @Query(value = "INSERT INTO vehicle_models (make_id, name, normalized_name, created_at) " +
+                   "VALUES (:makeId, :name, :normalizedName, NOW()) ON CONFLICT (make_id, normalized_name) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("makeId") Integer makeId, @Param("name") String name,
+                       @Param("normalizedName") String normalizedName);
+}
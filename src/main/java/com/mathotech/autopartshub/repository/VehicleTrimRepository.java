@@ -0,0 +1,22 @@
+package com.mathotech.autopartshub.repository;
+
+import com.mathotech.autopartshub.model.VehicleTrim;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface VehicleTrimRepository extends JpaRepository<VehicleTrim, Integer> {
+    Optional<VehicleTrim> findByModelIdAndNormalizedName(Integer modelId, String normalizedName);
+
+    @Modifying
+    @Query(value = "INSERT INTO vehicle_trims (model_id, name, normalized_name, created_at) " +
+                   "VALUES (:modelId, :name, :normalizedName, NOW()) ON CONFLICT (model_id, normalized_name) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("modelId") Integer modelId, @Param("name") String name,
+                       @Param("normalizedName") String normalizedName);
+}
@@ -4,45 +4,48 @@ import com.mathotech.autopartshub.dto.brand.BrandDto;
 import com.mathotech.autopartshub.model.Brand;
 import com.mathotech.autopartshub.repository.BrandRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class BrandService {
 
     private final BrandRepository brandRepository;
+    private final ListingCounterService listingCounterService;
+    private final ReferenceDataService referenceDataService;
 
-    @Cacheable(value = "brands")
     public List<BrandDto> getAllBrands() {
-        return brandRepository.findAll().stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return referenceDataService.getBrands();
     }
 
-    @Cacheable(value = "brands", key = "'page:' + #pageable.pageNumber + ':' + #pageable.pageSize")
+    /**
+     * Sorts and pages the snapshot in memory; the brand list is small enough that this is cheaper
+     * than a query.
+     */
     public Page<BrandDto> getBrandsPage(Pageable pageable) {
-        return brandRepository.findAll(pageable)
-                .map(this::mapToDto);
+        List<BrandDto> brands = new ArrayList<>(referenceDataService.getBrands());
+        brands.sort(comparator(pageable.getSort()));
+
+        int from = (int) Math.min(pageable.getOffset(), brands.size());
+        int to = Math.min(from + pageable.getPageSize(), brands.size());
+        return new PageImpl<>(brands.subList(from, to), pageable, brands.size());
     }
 
-    @Cacheable(value = "brands", key = "#id")
     public BrandDto getBrandById(Long id) {
-        Brand brand = brandRepository.findById(id)
+        return referenceDataService.findBrand(id)
                 .orElseThrow(() -> new RuntimeException("Brand not found with id: " + id));
-        
-        return mapToDto(brand);
     }
 
     @Transactional
-    @CacheEvict(value = "brands", allEntries = true)
     public BrandDto createBrand(BrandDto brandDto) {
         // Check if brand with the same name already exists
         if (brandRepository.existsByName(brandDto.getName())) {
@@ -55,11 +58,11 @@ public class BrandService {
         brand.setLogoUrl(brandDto.getLogoUrl());
         
         Brand savedBrand = brandRepository.save(brand);
+        referenceDataService.markChanged();
         return mapToDto(savedBrand);
     }
 
     @Transactional
-    @CacheEvict(value = "brands", allEntries = true)
     public BrandDto updateBrand(Long id, BrandDto brandDto) {
         Brand brand = brandRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Brand not found with id: " + id));
@@ -75,15 +78,51 @@ public class BrandService {
         brand.setLogoUrl(brandDto.getLogoUrl());
         
         Brand updatedBrand = brandRepository.save(brand);
+        referenceDataService.markChanged();
         return mapToDto(updatedBrand);
     }
 
     @Transactional
-    @CacheEvict(value = "brands", allEntries = true)
     public void deleteBrand(Long id) {
         // Note: In a real application, you might want to check if the brand is used by any listings
         // before allowing deletion, or implement a soft delete approach
         brandRepository.deleteById(id);
+        referenceDataService.markChanged();
+    }
+
+    /**
+     * A copy of the brand with its current active listing count, which is added on each read
+     * rather than kept in the snapshot.
+     */
+    public BrandDto withListingCount(BrandDto brand) {
+        return BrandDto.builder()
+                .id(brand.getId())
+                .name(brand.getName())
+                .description(brand.getDescription())
+                .logoUrl(brand.getLogoUrl())
+                .activeListingCount(listingCounterService.brandCount(brand.getId()))
+                .build();
+    }
+
+    private static Comparator<BrandDto> comparator(Sort sort) {
+        Comparator<BrandDto> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<BrandDto> next = switch (order.getProperty()) {
+                case "id" -> Comparator.comparing(BrandDto::getId);
+                case "name" -> Comparator.comparing(BrandDto::getName, String.CASE_INSENSITIVE_ORDER);
+                case "description" -> Comparator.comparing(BrandDto::getDescription,
+                        Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+                case "logoUrl" -> Comparator.comparing(BrandDto::getLogoUrl, Comparator.nullsLast(Comparator.naturalOrder()));
+                default -> throw new IllegalArgumentException("Cannot sort brands by " + order.getProperty());
+            };
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        // ID last, so equal keys page in a stable order
+        Comparator<BrandDto> byId = Comparator.comparing(BrandDto::getId);
+        return comparator == null ? byId : comparator.thenComparing(byId);
     }
 
     private BrandDto mapToDto(Brand brand) {
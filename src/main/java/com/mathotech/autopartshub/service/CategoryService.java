@@ -4,8 +4,6 @@ import com.mathotech.autopartshub.dto.category.CategoryDto;
 import com.mathotech.autopartshub.model.Category;
 import com.mathotech.autopartshub.repository.CategoryRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,31 +16,24 @@ import java.util.stream.Collectors;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final CategoryTree categoryTree;
+    private final ListingCounterService listingCounterService;
+    private final ReferenceDataService referenceDataService;
 
-    @Cacheable(value = "categories")
     public List<CategoryDto> getAllParentCategories() {
-        return categoryRepository.findByParentIsNull().stream()
-                .map(this::mapToDtoWithSubcategories)
-                .collect(Collectors.toList());
+        return referenceDataService.getRootCategories();
     }
 
-    @Cacheable(value = "categories", key = "#id")
     public CategoryDto getCategoryById(Long id) {
-        Category category = categoryRepository.findById(id)
+        return referenceDataService.findCategory(id)
                 .orElseThrow(() -> new RuntimeException("Category not found with id: " + id));
-        
-        return mapToDtoWithSubcategories(category);
     }
 
-    @Cacheable(value = "subcategories", key = "#parentId")
     public List<CategoryDto> getSubcategories(Long parentId) {
-        return categoryRepository.findByParentId(parentId).stream()
-                .map(this::mapToDto)
-                .collect(Collectors.toList());
+        return referenceDataService.getSubcategories(parentId);
     }
 
     @Transactional
-    @CacheEvict(value = {"categories", "subcategories"}, allEntries = true)
     public CategoryDto createCategory(CategoryDto categoryDto) {
         Category category = new Category();
         category.setName(categoryDto.getName());
@@ -54,11 +45,12 @@ public class CategoryService {
         }
         
         Category savedCategory = categoryRepository.save(category);
+        categoryTree.invalidate();
+        referenceDataService.markChanged();
         return mapToDto(savedCategory);
     }
 
     @Transactional
-    @CacheEvict(value = {"categories", "subcategories"}, allEntries = true)
     public CategoryDto updateCategory(Long id, CategoryDto categoryDto) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Category not found with id: " + id));
@@ -74,11 +66,12 @@ public class CategoryService {
         }
         
         Category updatedCategory = categoryRepository.save(category);
+        categoryTree.invalidate();
+        referenceDataService.markChanged();
         return mapToDto(updatedCategory);
     }
 
     @Transactional
-    @CacheEvict(value = {"categories", "subcategories"}, allEntries = true)
     public void deleteCategory(Long id) {
         // First, check if the category has subcategories
         List<Category> subcategories = categoryRepository.findByParentId(id);
@@ -87,6 +80,30 @@ public class CategoryService {
         }
         
         categoryRepository.deleteById(id);
+        categoryTree.invalidate();
+        referenceDataService.markChanged();
+    }
+
+    /**
+     * Copies of the categories, subcategories included, with current active listing counts. Counts
+     * change with every listing write, so they're added on each read rather than kept in the
+     * reference data snapshot.
+     */
+    public List<CategoryDto> withListingCounts(List<CategoryDto> categories) {
+        return categories.stream()
+                .map(this::withListingCounts)
+                .collect(Collectors.toList());
+    }
+
+    public CategoryDto withListingCounts(CategoryDto category) {
+        return CategoryDto.builder()
+                .id(category.getId())
+                .name(category.getName())
+                .description(category.getDescription())
+                .parentId(category.getParentId())
+                .activeListingCount(listingCounterService.categoryCount(category.getId()))
+                .subcategories(category.getSubcategories() == null ? null : withListingCounts(category.getSubcategories()))
+                .build();
     }
 
     private CategoryDto mapToDto(Category category) {
@@ -101,17 +118,4 @@ public class CategoryService {
         
         return dto;
     }
-
-    private CategoryDto mapToDtoWithSubcategories(Category category) {
-        CategoryDto dto = mapToDto(category);
-        
-        if (category.getSubcategories() != null && !category.getSubcategories().isEmpty()) {
-            List<CategoryDto> subcategoryDtos = category.getSubcategories().stream()
-                    .map(this::mapToDto)
-                    .collect(Collectors.toList());
-            dto.setSubcategories(subcategoryDtos);
-        }
-        
-        return dto;
-    }
 }
@@ -0,0 +1,158 @@
+package com.mathotech.autopartshub.service;
+
+import com.mathotech.autopartshub.repository.CategoryRepository;
+import com.mathotech.autopartshub.repository.CategoryRepository.CategoryNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable in-memory copy of the category hierarchy, numbered in pre-order so that a category and
+ * all its descendants occupy one contiguous range of positions. Expanding a category filter to its
+ * subtree is then an array slice, with no recursive query.
+ * <p>
+ * Built on first use and rebuilt lazily after {@link CategoryService} commits a change.
+ */
+@Service
+@RequiredArgsConstructor
+public class CategoryTree {
+
+    private final CategoryRepository categoryRepository;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * The category followed by all its descendants. An id not in the tree expands to just itself.
+     */
+    public List<Long> subtree(Long categoryId) {
+        Snapshot current = current();
+        Integer position = current.positions.get(categoryId);
+        if (position == null) {
+            return List.of(categoryId);
+        }
+        return Arrays.stream(current.ids, position, current.subtreeEnds[position])
+                .boxed()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Adds each category's count into all its ancestors, so a parent's count covers its subtree.
+     */
+    public Map<Long, Long> rollUp(Map<Long, Long> counts) {
+        Snapshot current = current();
+        long[] totals = new long[current.ids.length];
+        Map<Long, Long> result = new HashMap<>();
+        counts.forEach((id, count) -> {
+            Integer position = current.positions.get(id);
+            if (position != null) {
+                totals[position] += count;
+            } else {
+                result.merge(id, count, Long::sum);
+            }
+        });
+
+        // Children come after their parent in pre-order, so one backwards pass settles every total
+        for (int position = totals.length - 1; position >= 0; position--) {
+            int parent = current.parents[position];
+            if (parent >= 0) {
+                totals[parent] += totals[position];
+            }
+        }
+        for (int position = 0; position < totals.length; position++) {
+            if (totals[position] > 0) {
+                result.put(current.ids[position], totals[position]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops the tree once the current transaction commits, or straight away outside one.
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    discard();
+                }
+            });
+        } else {
+            discard();
+        }
+    }
+
+    private synchronized void discard() {
+        snapshot = null;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        // One caller builds while the rest wait for its tree. An invalidation arriving mid-build
+        // waits too, then drops the tree, so one read before the change is never kept.
+        synchronized (this) {
+            if (snapshot == null) {
+                snapshot = new Snapshot(categoryRepository.findAllNodes());
+            }
+            return snapshot;
+        }
+    }
+
+    private static final class Snapshot {
+        private final long[] ids;           // Category ids in pre-order
+        private final int[] subtreeEnds;    // Exclusive end of each position's subtree
+        private final int[] parents;        // Parent position, or -1 for roots
+        private final Map<Long, Integer> positions = new HashMap<>();
+
+        private Snapshot(List<CategoryNode> nodes) {
+            Map<Long, List<Long>> children = new HashMap<>();
+            List<Long> roots = new ArrayList<>();
+            Set<Long> known = nodes.stream().map(CategoryNode::getId).collect(Collectors.toSet());
+            for (CategoryNode node : nodes) {
+                if (node.getParentId() == null || !known.contains(node.getParentId())) {
+                    roots.add(node.getId());
+                } else {
+                    children.computeIfAbsent(node.getParentId(), k -> new ArrayList<>()).add(node.getId());
+                }
+            }
+            children.values().forEach(Collections::sort);
+            Collections.sort(roots);
+
+            ids = new long[nodes.size()];
+            subtreeEnds = new int[nodes.size()];
+            parents = new int[nodes.size()];
+            int next = 0;
+            for (Long root : roots) {
+                next = number(root, -1, next, children);
+            }
+            // A parent cycle has no root; number what's left as roots so every category is present
+            for (CategoryNode node : nodes) {
+                if (!positions.containsKey(node.getId())) {
+                    next = number(node.getId(), -1, next, children);
+                }
+            }
+        }
+
+        // Recursion depth is the tree's depth, which is a handful of levels
+        private int number(Long id, int parent, int next, Map<Long, List<Long>> children) {
+            int position = next++;
+            ids[position] = id;
+            parents[position] = parent;
+            positions.put(id, position);
+            for (Long child : children.getOrDefault(id, List.of())) {
+                if (!positions.containsKey(child)) {
+                    next = number(child, position, next, children);
+                }
+            }
+            subtreeEnds[position] = next;
+            return next;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.mathotech.autopartshub.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.StringJoiner;
+
+/**
+ * Builds strong ETags from the versions a response depends on (timestamps, version numbers,
+ * counts) rather than from the rendered body, so they can be checked before the body is built.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String of(Object... parts) {
+        StringJoiner etag = new StringJoiner("-", "\"", "\"");
+        for (Object part : parts) {
+            if (part instanceof LocalDateTime time) {
+                etag.add(Long.toString(time.toInstant(ZoneOffset.UTC).toEpochMilli()));
+            } else {
+                etag.add(String.valueOf(part));
+            }
+        }
+        return etag.toString();
+    }
+}
@@ -0,0 +1,448 @@
+package com.mathotech.autopartshub.service;
+
+import com.mathotech.autopartshub.dto.listing.FitmentImportErrorDto;
+import com.mathotech.autopartshub.dto.listing.FitmentImportResultDto;
+import com.mathotech.autopartshub.event.ListingChangedEvent;
+import com.mathotech.autopartshub.event.ListingChangedEvent.ChangeType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Year;
+import java.util.*;
+
+/**
+ * Bulk-loads fitment rows from CSV. Rows are validated while the file streams in and written to a
+ * temporary staging table with COPY; listing matching, vehicle catalog resolution and the merge
+ * into compatibility_mappings then run as a handful of set-based statements. Bad rows are reported
+ * back without failing the import.
+ * <p>
+ * Expected header: make, model, year_start, year_end, either listing_id or part_number, and
+ * optionally engine and trim. A part_number row applies to every matching listing by OEM or
+ * aftermarket part number.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FitmentImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int COPY_FLUSH_CHARS = 1 << 20;
+    private static final int MAX_NAME_LENGTH = 100;
+    private static final int MIN_YEAR = 1900;
+
+    private static final String CREATE_STAGING_SQL =
+            "CREATE TEMP TABLE fitment_import_staging (" +
+            "row_no BIGINT NOT NULL, listing_id BIGINT, part_number VARCHAR(100), " +
+            "make VARCHAR(100) NOT NULL, make_norm VARCHAR(100) NOT NULL, " +
+            "model VARCHAR(100) NOT NULL, model_norm VARCHAR(100) NOT NULL, " +
+            "year_start INTEGER NOT NULL, year_end INTEGER NOT NULL, " +
+            "engine VARCHAR(100), engine_norm VARCHAR(100), trim VARCHAR(100), trim_norm VARCHAR(100), " +
+            "matched BOOLEAN NOT NULL DEFAULT FALSE, " +
+            "make_id INTEGER, model_id INTEGER, engine_id INTEGER, trim_id INTEGER" +
+            ") ON COMMIT DROP";
+
+    private static final String COPY_SQL =
+            "COPY fitment_import_staging (row_no, listing_id, part_number, make, make_norm, model, model_norm, " +
+            "year_start, year_end, engine, engine_norm, trim, trim_norm) FROM STDIN WITH (FORMAT csv)";
+
+    private static final String MATCH_LISTING_IDS_SQL =
+            "UPDATE fitment_import_staging s SET matched = TRUE FROM listings l " +
+            "WHERE s.listing_id IS NOT NULL AND l.id = s.listing_id";
+
+    // UNION of two joins rather than an OR, so each side can hash join on its part number column
+    private static final String EXPAND_PART_NUMBERS_SQL =
+            "INSERT INTO fitment_import_staging (row_no, listing_id, make, make_norm, model, model_norm, " +
+            "year_start, year_end, engine, engine_norm, trim, trim_norm, matched) " +
+            "SELECT s.row_no, l.id, s.make, s.make_norm, s.model, s.model_norm, s.year_start, s.year_end, " +
+            "s.engine, s.engine_norm, s.trim, s.trim_norm, TRUE " +
+            "FROM fitment_import_staging s JOIN listings l ON l.oem_part_number = s.part_number " +
+            "WHERE s.listing_id IS NULL%1$s " +
+            "UNION " +
+            "SELECT s.row_no, l.id, s.make, s.make_norm, s.model, s.model_norm, s.year_start, s.year_end, " +
+            "s.engine, s.engine_norm, s.trim, s.trim_norm, TRUE " +
+            "FROM fitment_import_staging s JOIN listings l ON l.aftermarket_part_number = s.part_number " +
+            "WHERE s.listing_id IS NULL%1$s";
+
+    private static final String UNMATCHED_ROWS_SQL =
+            "FROM fitment_import_staging s WHERE NOT s.matched AND NOT EXISTS (" +
+            "SELECT 1 FROM fitment_import_staging m WHERE m.row_no = s.row_no AND m.matched)";
+
+    private static final List<String> RESOLVE_CATALOG_SQL = List.of(
+            "UPDATE fitment_import_staging s SET make_id = a.make_id " +
+            "FROM vehicle_make_aliases a WHERE a.alias = s.make_norm",
+            "INSERT INTO vehicle_makes (name, normalized_name, created_at) " +
+            "SELECT DISTINCT ON (make_norm) make, make_norm, NOW() FROM fitment_import_staging " +
+            "WHERE make_id IS NULL ORDER BY make_norm, make " +
+            "ON CONFLICT (normalized_name) DO NOTHING",
+            "UPDATE fitment_import_staging s SET make_id = m.id " +
+            "FROM vehicle_makes m WHERE s.make_id IS NULL AND m.normalized_name = s.make_norm",
+            "INSERT INTO vehicle_models (make_id, name, normalized_name, created_at) " +
+            "SELECT DISTINCT ON (make_id, model_norm) make_id, model, model_norm, NOW() " +
+            "FROM fitment_import_staging ORDER BY make_id, model_norm, model " +
+            "ON CONFLICT (make_id, normalized_name) DO NOTHING",
+            "UPDATE fitment_import_staging s SET model_id = vm.id " +
+            "FROM vehicle_models vm WHERE vm.make_id = s.make_id AND vm.normalized_name = s.model_norm",
+            "INSERT INTO vehicle_engines (model_id, name, normalized_name, created_at) " +
+            "SELECT DISTINCT ON (model_id, engine_norm) model_id, engine, engine_norm, NOW() " +
+            "FROM fitment_import_staging WHERE engine_norm IS NOT NULL ORDER BY model_id, engine_norm, engine " +
+            "ON CONFLICT (model_id, normalized_name) DO NOTHING",
+            "UPDATE fitment_import_staging s SET engine_id = ve.id " +
+            "FROM vehicle_engines ve WHERE ve.model_id = s.model_id AND ve.normalized_name = s.engine_norm",
+            "INSERT INTO vehicle_trims (model_id, name, normalized_name, created_at) " +
+            "SELECT DISTINCT ON (model_id, trim_norm) model_id, trim, trim_norm, NOW() " +
+            "FROM fitment_import_staging WHERE trim_norm IS NOT NULL ORDER BY model_id, trim_norm, trim " +
+            "ON CONFLICT (model_id, normalized_name) DO NOTHING",
+            "UPDATE fitment_import_staging s SET trim_id = vt.id " +
+            "FROM vehicle_trims vt WHERE vt.model_id = s.model_id AND vt.normalized_name = s.trim_norm");
+
+    private static final String MERGE_SQL =
+            "WITH inserted AS (" +
+            "INSERT INTO compatibility_mappings (listing_id, make_id, model_id, year_start, year_end, " +
+            "engine_id, trim_id, created_at) " +
+            "SELECT DISTINCT s.listing_id, s.make_id, s.model_id, s.year_start, s.year_end, " +
+            "s.engine_id, s.trim_id, NOW() " +
+            "FROM fitment_import_staging s WHERE NOT EXISTS (" +
+            "SELECT 1 FROM compatibility_mappings cm WHERE cm.listing_id = s.listing_id " +
+            "AND cm.model_id = s.model_id AND cm.year_start = s.year_start AND cm.year_end = s.year_end " +
+            "AND cm.engine_id IS NOT DISTINCT FROM s.engine_id AND cm.trim_id IS NOT DISTINCT FROM s.trim_id) " +
+            "RETURNING listing_id), " +
+            // New mappings change the listing detail response, and its ETag is built from updated_at
+            "touched AS (UPDATE listings SET updated_at = NOW() WHERE id IN (SELECT listing_id FROM inserted)) " +
+            "SELECT COUNT(*) AS created, COUNT(DISTINCT listing_id) AS listings FROM inserted";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VehicleFitmentIndex vehicleFitmentIndex;
+    private final ListingReindexService listingReindexService;
+    private final ListingService listingService;
+    private final ListingChangeRelay listingChangeRelay;
+
+    // Above this many changed listings, rebuild the fitment index and search index wholesale
+    // instead of publishing a change event per listing
+    @Value("${app.fitment-import.event-threshold:1000}")
+    private int eventThreshold;
+
+    /**
+     * Imports the CSV in one transaction. A null sellerId (admins) allows any listing; otherwise
+     * rows naming another seller's listing are rejected.
+     */
+    @Transactional
+    public FitmentImportResultDto importCsv(InputStream csv, Long sellerId) throws IOException {
+        long started = System.currentTimeMillis();
+        FitmentImportResultDto result = new FitmentImportResultDto();
+
+        jdbcTemplate.execute(CREATE_STAGING_SQL);
+        stageRows(csv, result);
+        jdbcTemplate.execute("ANALYZE fitment_import_staging");
+
+        String sellerClause = sellerId == null ? "" : " AND l.seller_id = ?";
+        Object[] sellerArgs = sellerId == null ? new Object[0] : new Object[] {sellerId};
+        jdbcTemplate.update(MATCH_LISTING_IDS_SQL + sellerClause, sellerArgs);
+        jdbcTemplate.update(String.format(EXPAND_PART_NUMBERS_SQL, sellerClause),
+                sellerId == null ? new Object[0] : new Object[] {sellerId, sellerId});
+        rejectUnmatchedRows(result);
+        jdbcTemplate.update("DELETE FROM fitment_import_staging WHERE NOT matched");
+        jdbcTemplate.execute("ANALYZE fitment_import_staging");
+
+        RESOLVE_CATALOG_SQL.forEach(jdbcTemplate::update);
+
+        Long staged = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM fitment_import_staging", Long.class);
+        Map<String, Object> merged = jdbcTemplate.queryForMap(MERGE_SQL);
+        long created = ((Number) merged.get("created")).longValue();
+        long listings = ((Number) merged.get("listings")).longValue();
+        result.setMappingsCreated(created);
+        result.setDuplicateMappings((staged != null ? staged : 0L) - created);
+        result.setListingsAffected(listings);
+
+        if (listings > 0) {
+            notifyListingsChanged(listings);
+        }
+
+        result.setDurationMs(System.currentTimeMillis() - started);
+        log.info("Fitment import: {} rows read, {} rejected, {} mappings created on {} listings in {} ms",
+                result.getRowsRead(), result.getRowsRejected(), created, listings, result.getDurationMs());
+        return result;
+    }
+
+    private void stageRows(InputStream csv, FitmentImportResultDto result) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+        CsvReader csvReader = new CsvReader(reader);
+        Map<String, Integer> columns = readHeader(csvReader.next());
+        int maxYear = Year.now().getValue() + 2;
+
+        try {
+            PGConnection connection = DataSourceUtils.getConnection(dataSource).unwrap(PGConnection.class);
+            CopyIn copyIn = connection.getCopyAPI().copyIn(COPY_SQL);
+            try {
+                StringBuilder buffer = new StringBuilder(COPY_FLUSH_CHARS + 4096);
+                long row = 1;
+                List<String> record;
+                while ((record = csvReader.next()) != null) {
+                    row++;
+                    if (record.size() == 1 && record.get(0).isBlank()) {
+                        continue;
+                    }
+                    result.setRowsRead(result.getRowsRead() + 1);
+
+                    String error = appendRow(buffer, row, record, columns, maxYear);
+                    if (error != null) {
+                        result.setRowsRejected(result.getRowsRejected() + 1);
+                        addError(result, row, error);
+                    }
+                    if (buffer.length() >= COPY_FLUSH_CHARS) {
+                        flush(copyIn, buffer);
+                    }
+                }
+                flush(copyIn, buffer);
+                copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Could not stage fitment rows: " + ex.getMessage(), ex);
+        }
+    }
+
+    private Map<String, Integer> readHeader(List<String> header) {
+        if (header == null) {
+            throw new IllegalArgumentException("The fitment file is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+            columns.put(name, i);
+        }
+        for (String required : List.of("make", "model", "year_start", "year_end")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("The fitment file has no " + required + " column");
+            }
+        }
+        if (!columns.containsKey("listing_id") && !columns.containsKey("part_number")) {
+            throw new IllegalArgumentException("The fitment file needs a listing_id or part_number column");
+        }
+        return columns;
+    }
+
+    /**
+     * Validates one record and, if it is good, appends it to the COPY buffer. Returns the reason
+     * it was rejected, or null.
+     */
+    private String appendRow(StringBuilder buffer, long row, List<String> record,
+                             Map<String, Integer> columns, int maxYear) {
+        String listingIdText = value(record, columns, "listing_id");
+        String partNumber = value(record, columns, "part_number");
+        Long listingId = null;
+        if (listingIdText != null) {
+            try {
+                listingId = Long.parseLong(listingIdText);
+            } catch (NumberFormatException ex) {
+                return "listing_id must be a number";
+            }
+        } else if (partNumber == null) {
+            return "listing_id or part_number is required";
+        }
+
+        String make = value(record, columns, "make");
+        String model = value(record, columns, "model");
+        String engine = value(record, columns, "engine");
+        String trim = value(record, columns, "trim");
+        if (make == null || model == null) {
+            return "make and model are required";
+        }
+        for (String text : new String[] {partNumber, make, model, engine, trim}) {
+            if (text != null && text.length() > MAX_NAME_LENGTH) {
+                return "Values must be at most " + MAX_NAME_LENGTH + " characters";
+            }
+        }
+
+        Integer yearStart = parseYear(value(record, columns, "year_start"), maxYear);
+        Integer yearEnd = parseYear(value(record, columns, "year_end"), maxYear);
+        if (yearStart == null || yearEnd == null) {
+            return "year_start and year_end must be years between " + MIN_YEAR + " and " + maxYear;
+        }
+        if (yearStart > yearEnd) {
+            return "year_start is after year_end";
+        }
+
+        buffer.append(row).append(',')
+                .append(listingId != null ? listingId.toString() : "").append(',');
+        appendText(buffer, listingId == null ? partNumber : null);
+        appendText(buffer, make);
+        appendText(buffer, VehicleCatalogService.normalize(make));
+        appendText(buffer, model);
+        appendText(buffer, VehicleCatalogService.normalize(model));
+        buffer.append(yearStart).append(',').append(yearEnd).append(',');
+        appendText(buffer, engine);
+        appendText(buffer, engine != null ? VehicleCatalogService.normalize(engine) : null);
+        appendText(buffer, trim);
+        buffer.append(trim != null ? quote(VehicleCatalogService.normalize(trim)) : "").append('\n');
+        return null;
+    }
+
+    private void rejectUnmatchedRows(FitmentImportResultDto result) {
+        Long unmatched = jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT s.row_no) " + UNMATCHED_ROWS_SQL,
+                Long.class);
+        if (unmatched == null || unmatched == 0) {
+            return;
+        }
+        result.setRowsRejected(result.getRowsRejected() + unmatched);
+
+        int room = Math.max(0, MAX_REPORTED_ERRORS - result.getErrors().size());
+        jdbcTemplate.query("SELECT s.row_no, s.listing_id, s.part_number " + UNMATCHED_ROWS_SQL +
+                        " ORDER BY s.row_no LIMIT ?",
+                rs -> {
+                    long listingId = rs.getLong("listing_id");
+                    String message = rs.wasNull()
+                            ? "No listing has part number " + rs.getString("part_number")
+                            : "Listing " + listingId + " not found";
+                    addError(result, rs.getLong("row_no"), message);
+                }, room);
+        if (unmatched > room) {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    private void notifyListingsChanged(long listings) {
+        if (listings <= eventThreshold) {
+            // Listeners (search sync, fitment index) run after this transaction commits
+            jdbcTemplate.queryForList("SELECT DISTINCT listing_id FROM fitment_import_staging", Long.class)
+                    .forEach(id -> eventPublisher.publishEvent(new ListingChangedEvent(id, ChangeType.UPDATED)));
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                listingService.evictAllCachedListings();
+                vehicleFitmentIndex.rebuildInBackground();
+                listingChangeRelay.announceFitmentRebuild();
+                try {
+                    listingReindexService.startReindex();
+                } catch (IllegalStateException ex) {
+                    log.warn("Fitment import committed while a listings reindex was running; " +
+                            "run another reindex once it finishes");
+                }
+            }
+        });
+    }
+
+    private static void addError(FitmentImportResultDto result, long row, String message) {
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(FitmentImportErrorDto.builder().row(row).message(message).build());
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    private static String value(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Integer parseYear(String text, int maxYear) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            int year = Integer.parseInt(text);
+            return year >= MIN_YEAR && year <= maxYear ? year : null;
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    // In COPY's csv format an unquoted empty field is NULL and a quoted one is an empty string
+    private static void appendText(StringBuilder buffer, String value) {
+        buffer.append(value != null ? quote(value) : "").append(',');
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static void flush(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.length() > 0) {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+
+    /**
+     * Minimal RFC 4180 reader: quoted fields may contain commas, doubled quotes and line breaks.
+     */
+    private static final class CsvReader {
+        private final Reader reader;
+
+        private CsvReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        List<String> next() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean read = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                read = true;
+                if (quoted) {
+                    if (c != '"') {
+                        field.append((char) c);
+                        continue;
+                    }
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            if (!read) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
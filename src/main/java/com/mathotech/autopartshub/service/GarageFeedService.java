@@ -0,0 +1,288 @@
+package com.mathotech.autopartshub.service;
+
+import com.mathotech.autopartshub.dto.listing.ListingSummaryDto;
+import com.mathotech.autopartshub.event.ListingChangedEvent;
+import com.mathotech.autopartshub.model.UserVehicle;
+import com.mathotech.autopartshub.repository.UserVehicleRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * "Parts for my vehicles": per distinct garage vehicle (model, year, engine), the in-stock active
+ * listings that fit it, ranked by units sold recently. Feeds are precomputed for every vehicle in
+ * any garage, kept in memory, patched as listings change and rebuilt on a schedule to pick up
+ * order volume.
+ * <p>
+ * Each feed keeps twice the served size so listings dropping out don't leave it short before the
+ * next rebuild.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GarageFeedService {
+
+    // Matching is the same as the vehicle compatibility lookup. The two %s slots narrow the query
+    // to one vehicle or one listing for incremental updates.
+    private static final String FEED_SQL =
+            "WITH vehicles AS (SELECT DISTINCT model_id, year, engine_id FROM user_vehicles%s), " +
+            "fits AS (SELECT DISTINCT v.model_id, v.year, v.engine_id, cm.listing_id FROM vehicles v " +
+            "JOIN compatibility_mappings cm ON cm.model_id = v.model_id " +
+            "AND v.year BETWEEN cm.year_start AND cm.year_end " +
+            "AND (v.engine_id IS NULL OR cm.engine_id = v.engine_id) " +
+            "JOIN listings l ON l.id = cm.listing_id AND l.active = TRUE AND l.quantity > 0%s), " +
+            "sales AS (SELECT oi.listing_id, SUM(oi.quantity) AS units FROM order_items oi " +
+            "JOIN orders o ON o.id = oi.order_id " +
+            "WHERE o.created_at > NOW() - make_interval(days => ?) " +
+            "AND o.status NOT IN ('PENDING_PAYMENT', 'CANCELLED', 'REFUNDED') " +
+            "AND oi.listing_id IN (SELECT listing_id FROM fits) GROUP BY oi.listing_id), " +
+            "ranked AS (SELECT f.model_id, f.year, f.engine_id, f.listing_id, COALESCE(s.units, 0) AS units, " +
+            "ROW_NUMBER() OVER (PARTITION BY f.model_id, f.year, f.engine_id " +
+            "ORDER BY COALESCE(s.units, 0) DESC, f.listing_id DESC) AS position " +
+            "FROM fits f LEFT JOIN sales s ON s.listing_id = f.listing_id) " +
+            "SELECT model_id, year, engine_id, listing_id, units FROM ranked WHERE position <= ? " +
+            "ORDER BY model_id, year, engine_id, position";
+
+    private static final String ONE_VEHICLE =
+            " WHERE model_id = ? AND year = ? AND engine_id IS NOT DISTINCT FROM CAST(? AS INTEGER)";
+    private static final String ONE_LISTING = " AND l.id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserVehicleRepository userVehicleRepository;
+    private final ListingService listingService;
+
+    @Value("${app.garage-feed.size:50}")
+    private int feedSize;
+
+    @Value("${app.garage-feed.popularity-days:30}")
+    private int popularityDays;
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "garage-feed-load");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, Feed> feeds = new ConcurrentHashMap<>();
+    private final Set<Long> changedDuringLoad = ConcurrentHashMap.newKeySet();
+    private volatile boolean loading;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        loader.submit(this::rebuild);
+    }
+
+    /**
+     * Recomputes every garage vehicle's feed in one query and swaps them in.
+     */
+    @Scheduled(fixedDelayString = "${app.garage-feed.refresh-interval-ms:900000}",
+            initialDelayString = "${app.garage-feed.refresh-interval-ms:900000}")
+    public void rebuild() {
+        loading = true;
+        try {
+            long started = System.currentTimeMillis();
+            Map<String, Feed> fresh = query("", "", new Object[0]);
+
+            synchronized (this) {
+                feeds.keySet().retainAll(fresh.keySet());
+                feeds.putAll(fresh);
+                loading = false;
+            }
+            List<Long> changed = new ArrayList<>(changedDuringLoad);
+            changedDuringLoad.removeAll(changed);
+            changed.forEach(this::refreshListing);
+            log.info("Rebuilt garage feeds for {} vehicles in {} ms", fresh.size(), System.currentTimeMillis() - started);
+        } catch (Exception ex) {
+            loading = false;
+            log.error("Failed to rebuild garage feeds", ex);
+        }
+    }
+
+    /**
+     * Up to size in-stock listings fitting any of the user's saved vehicles, best sellers first.
+     */
+    @Transactional(readOnly = true)
+    public List<ListingSummaryDto> getFeed(Long userId, int size) {
+        int limit = Math.max(1, Math.min(size, feedSize));
+
+        // A listing fitting several of the user's vehicles appears once
+        Map<Long, Long> unitsByListing = new HashMap<>();
+        for (UserVehicle vehicle : userVehicleRepository.findByUserIdOrderByCreatedAtAsc(userId)) {
+            Integer engineId = vehicle.getEngine() != null ? vehicle.getEngine().getId() : null;
+            Feed feed = feedFor(vehicle.getModel().getId(), vehicle.getYear(), engineId);
+            for (int i = 0; i < feed.ids.length; i++) {
+                unitsByListing.merge(feed.ids[i], feed.units[i], Math::max);
+            }
+        }
+
+        // Stock can run out between updates, so over-fetch and let the listing read filter
+        List<Long> ids = unitsByListing.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.<Long, Long>comparingByKey().reversed()))
+                .limit(limit * 2L)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        List<ListingSummaryDto> listings = listingService.getInStockListings(ids);
+        return listings.size() > limit ? listings.subList(0, limit) : listings;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        try {
+            if (loading) {
+                changedDuringLoad.add(event.getListingId());
+            }
+            if (event.getType() == ListingChangedEvent.ChangeType.DELETED) {
+                apply(event.getListingId(), Map.of());
+            } else {
+                refreshListing(event.getListingId());
+            }
+        } catch (Exception ex) {
+            log.warn("Failed to update garage feeds for listing {}: {}", event.getListingId(), ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    /**
+     * Vehicles saved since the last rebuild are computed on first request.
+     */
+    private Feed feedFor(int modelId, int year, Integer engineId) {
+        String key = key(modelId, year, engineId);
+        Feed feed = feeds.get(key);
+        if (feed != null) {
+            return feed;
+        }
+        feed = query(ONE_VEHICLE, "", new Object[] {modelId, year, engineId}).getOrDefault(key, Feed.EMPTY);
+        Feed existing = feeds.putIfAbsent(key, feed);
+        return existing != null ? existing : feed;
+    }
+
+    private void refreshListing(Long listingId) {
+        Map<String, Long> unitsByVehicle = new HashMap<>();
+        query("", ONE_LISTING, new Object[] {listingId})
+                .forEach((key, feed) -> unitsByVehicle.put(key, feed.units[0]));
+        apply(listingId, unitsByVehicle);
+    }
+
+    /**
+     * Moves the listing to its new place in each feed, or out of feeds it no longer qualifies
+     * for. Vehicles without a feed yet pick the listing up when theirs is first computed.
+     */
+    private synchronized void apply(long listingId, Map<String, Long> unitsByVehicle) {
+        int capacity = feedSize * 2;
+        for (Map.Entry<String, Feed> entry : feeds.entrySet()) {
+            Feed current = entry.getValue();
+            Long units = unitsByVehicle.get(entry.getKey());
+            Feed next = current.without(listingId);
+            if (units != null) {
+                next = next.with(listingId, units, capacity);
+            }
+            if (next != current) {
+                entry.setValue(next);
+            }
+        }
+    }
+
+    private Map<String, Feed> query(String vehicleFilter, String listingFilter, Object[] filterArgs) {
+        Object[] args = Arrays.copyOf(filterArgs, filterArgs.length + 2);
+        args[filterArgs.length] = popularityDays;
+        args[filterArgs.length + 1] = feedSize * 2;
+
+        Map<String, List<long[]>> rowsByVehicle = new LinkedHashMap<>();
+        jdbcTemplate.query(String.format(FEED_SQL, vehicleFilter, listingFilter), rs -> {
+            int engineId = rs.getInt("engine_id");
+            String key = key(rs.getInt("model_id"), rs.getInt("year"), rs.wasNull() ? null : engineId);
+            rowsByVehicle.computeIfAbsent(key, k -> new ArrayList<>())
+                    .add(new long[] {rs.getLong("listing_id"), rs.getLong("units")});
+        }, args);
+
+        Map<String, Feed> result = new HashMap<>();
+        rowsByVehicle.forEach((key, rows) -> {
+            long[] ids = new long[rows.size()];
+            long[] units = new long[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                ids[i] = rows.get(i)[0];
+                units[i] = rows.get(i)[1];
+            }
+            result.put(key, new Feed(ids, units));
+        });
+        return result;
+    }
+
+    private static String key(int modelId, int year, Integer engineId) {
+        return modelId + ":" + year + ":" + (engineId != null ? engineId : "");
+    }
+
+    /**
+     * Listing IDs with their units sold, best first (ties by newest ID). Immutable; updates build
+     * a new feed so readers never lock.
+     */
+    private static final class Feed {
+        private static final Feed EMPTY = new Feed(new long[0], new long[0]);
+
+        private final long[] ids;
+        private final long[] units;
+
+        private Feed(long[] ids, long[] units) {
+            this.ids = ids;
+            this.units = units;
+        }
+
+        Feed without(long listingId) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == listingId) {
+                    long[] nextIds = new long[ids.length - 1];
+                    long[] nextUnits = new long[ids.length - 1];
+                    System.arraycopy(ids, 0, nextIds, 0, i);
+                    System.arraycopy(units, 0, nextUnits, 0, i);
+                    System.arraycopy(ids, i + 1, nextIds, i, ids.length - i - 1);
+                    System.arraycopy(units, i + 1, nextUnits, i, ids.length - i - 1);
+                    return new Feed(nextIds, nextUnits);
+                }
+            }
+            return this;
+        }
+
+        Feed with(long listingId, long listingUnits, int capacity) {
+            int position = 0;
+            while (position < ids.length
+                    && (units[position] > listingUnits || (units[position] == listingUnits && ids[position] > listingId))) {
+                position++;
+            }
+            if (position >= capacity) {
+                return this;
+            }
+            int size = Math.min(ids.length + 1, capacity);
+            long[] nextIds = new long[size];
+            long[] nextUnits = new long[size];
+            System.arraycopy(ids, 0, nextIds, 0, position);
+            System.arraycopy(units, 0, nextUnits, 0, position);
+            nextIds[position] = listingId;
+            nextUnits[position] = listingUnits;
+            System.arraycopy(ids, position, nextIds, position + 1, size - position - 1);
+            System.arraycopy(units, position, nextUnits, position + 1, size - position - 1);
+            return new Feed(nextIds, nextUnits);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.mathotech.autopartshub.service;
+
+import com.mathotech.autopartshub.event.ListingStockChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stock of listings in hot-stock mode, held per node so flash-sale checkouts are admitted in
+ * memory instead of queuing on the listing row.
+ * <p>
+ * A node claims a block of a hot listing's units into its allotment, taking them off
+ * listings.quantity, and hands them out with a compare-and-set per checkout. Each sale is
+ * inserted into hot_stock_sales in the order's own transaction while holding a key-share lock on
+ * the allotment, so the allotment can't be returned under it. A scheduled pass renews the node's
+ * lease, folds the recorded sales into its allotments in one statement and returns allotments
+ * that sit idle. Allotments whose lease lapses, such as those of a node that stopped or
+ * restarted, are returned to their listing by whichever node sees them first, less the sales
+ * recorded against them.
+ * <p>
+ * Units out in allotments aren't part of listings.quantity, so a hot listing shows a little less
+ * stock than it has while a sale runs.
+ */
+@Service
+@Slf4j
+public class HotStockLedger {
+
+    private static final String HOT_LISTINGS_SQL = "SELECT id FROM listings WHERE hot_stock AND active";
+
+    // Takes up to a block; a listing with fewer units left gives what it has
+    private static final String CLAIM_SQL =
+            "UPDATE listings l SET quantity = l.quantity - c.take, updated_at = NOW() " +
+            "FROM (SELECT id, LEAST(quantity, ?) AS take FROM listings " +
+            "WHERE id = ? AND active AND hot_stock AND quantity > 0 FOR UPDATE) c " +
+            "WHERE l.id = c.id RETURNING c.take";
+
+    private static final String ALLOT_SQL =
+            "INSERT INTO hot_stock_allotments (listing_id, node_id, units, lease_until) " +
+            "VALUES (?, ?, ?, NOW() + ? * INTERVAL '1 millisecond') " +
+            "ON CONFLICT (listing_id, node_id) DO UPDATE " +
+            "SET units = hot_stock_allotments.units + EXCLUDED.units, lease_until = EXCLUDED.lease_until";
+
+    // Records nothing once the allotment is gone or its lease has lapsed. The key-share lock
+    // blocks returning the allotment until the order commits, but not the fold's update.
+    private static final String SALE_SQL =
+            "WITH allotment AS (SELECT listing_id FROM hot_stock_allotments " +
+            "WHERE listing_id = ? AND node_id = ? AND lease_until > NOW() FOR KEY SHARE) " +
+            "INSERT INTO hot_stock_sales (listing_id, node_id, units) SELECT listing_id, ?, ? FROM allotment";
+
+    private static final String RENEW_SQL =
+            "UPDATE hot_stock_allotments SET lease_until = NOW() + ? * INTERVAL '1 millisecond' WHERE node_id = ?";
+
+    private static final String FOLD_SQL =
+            "WITH sold AS (DELETE FROM hot_stock_sales WHERE node_id = ? RETURNING listing_id, units) " +
+            "UPDATE hot_stock_allotments a SET units = a.units - s.units " +
+            "FROM (SELECT listing_id, SUM(units) AS units FROM sold GROUP BY listing_id) s " +
+            "WHERE a.listing_id = s.listing_id AND a.node_id = ?";
+
+    private static final String LOCK_ALLOTMENT_SQL =
+            "SELECT units FROM hot_stock_allotments WHERE listing_id = ? AND node_id = ? FOR UPDATE";
+
+    private static final String LAPSED_SQL =
+            "SELECT listing_id, node_id FROM hot_stock_allotments WHERE lease_until < NOW() " +
+            "ORDER BY listing_id LIMIT 100 FOR UPDATE SKIP LOCKED";
+
+    // Run as its own statement after the allotment is locked, so it sees every sale committed
+    // while waiting for the lock
+    private static final String RETURN_SQL =
+            "WITH allotment AS (DELETE FROM hot_stock_allotments WHERE listing_id = ? AND node_id = ? RETURNING units), " +
+            "sold AS (DELETE FROM hot_stock_sales WHERE listing_id = ? AND node_id = ? RETURNING units) " +
+            "UPDATE listings SET quantity = quantity + (SELECT units FROM allotment) " +
+            "- (SELECT COALESCE(SUM(units), 0) FROM sold), updated_at = NOW() " +
+            "WHERE id = ? AND EXISTS (SELECT 1 FROM allotment)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<Long, Allotment> allotments = new ConcurrentHashMap<>();
+    // Claims and returns run here, one at a time and never in a checkout's transaction: a
+    // checkout holds no second connection and waits on nothing, and a claim can't overtake the
+    // return of the allotment it would add to
+    private final ExecutorService allotter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hot-stock-allot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Lease renewal has its own thread, so a long job on the shared scheduler can't let every
+    // allotment on this node lapse
+    private final ScheduledExecutorService leaseRenewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hot-stock-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Set<Long> hotListingIds = Set.of();
+    // Checkouts stop using the ledger when the lease hasn't been renewed for half its length,
+    // well before another node could return the allotments
+    private volatile long leaseValidUntil;
+
+    @Value("${app.hot-stock.block-size:20}")
+    private int blockSize;
+
+    @Value("${app.hot-stock.lease-ms:30000}")
+    private long leaseMs;
+
+    @Value("${app.hot-stock.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${app.hot-stock.idle-return-ms:60000}")
+    private long idleReturnMs;
+
+    public HotStockLedger(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher,
+                          PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public boolean isHot(Long listingId) {
+        return hotListingIds.contains(listingId);
+    }
+
+    /**
+     * Takes the units from this node's allotment and records the sale in the current transaction;
+     * a rollback gives the units back. An allotment running low is topped up in the background.
+     * False when the listing isn't hot or the allotment can't cover the units right now, in which
+     * case the caller reserves from the listing row as usual.
+     */
+    public boolean reserve(Long listingId, int quantity) {
+        if (!isHot(listingId) || System.currentTimeMillis() >= leaseValidUntil) {
+            return false;
+        }
+        Allotment allotment = allotments.computeIfAbsent(listingId, Allotment::new);
+        boolean taken = allotment.tryTake(quantity);
+        if (allotment.available.get() < Math.max(quantity, blockSize / 2)) {
+            requestRefill(allotment);
+        }
+        if (!taken) {
+            return false;
+        }
+        if (jdbcTemplate.update(SALE_SQL, listingId, nodeId, nodeId, quantity) == 0) {
+            // The allotment was returned or its lease lapsed; the units here are no longer ours
+            retire(allotment);
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    allotment.giveBack(quantity);
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Renews this node's lease, folds recorded sales into its allotments and returns allotments
+     * that have gone idle or whose listing left hot-stock mode.
+     */
+    private void flush() {
+        if (allotments.isEmpty()) {
+            // Nothing to renew; claims start a fresh lease
+            leaseValidUntil = System.currentTimeMillis() + leaseMs / 2;
+            return;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            jdbcTemplate.update(RENEW_SQL, leaseMs, nodeId);
+            leaseValidUntil = started + leaseMs / 2;
+            jdbcTemplate.update(FOLD_SQL, nodeId, nodeId);
+        } catch (Exception ex) {
+            log.warn("Failed to renew hot stock allotments; checkouts fall back to the listing rows", ex);
+        }
+
+        long idleSince = System.currentTimeMillis() - idleReturnMs;
+        for (Allotment allotment : allotments.values()) {
+            if (!isHot(allotment.listingId) || allotment.lastSaleAt < idleSince) {
+                retire(allotment);
+            }
+        }
+    }
+
+    /**
+     * Returns allotments whose lease lapsed, from any node, to their listings.
+     */
+    @Scheduled(fixedDelayString = "${app.hot-stock.lease-ms:30000}", initialDelayString = "${app.hot-stock.lease-ms:30000}")
+    public void reconcile() {
+        try {
+            int returned;
+            do {
+                returned = transactionTemplate.execute(status -> {
+                    List<Map<String, Object>> lapsed = jdbcTemplate.queryForList(LAPSED_SQL);
+                    for (Map<String, Object> row : lapsed) {
+                        long listingId = ((Number) row.get("listing_id")).longValue();
+                        returnUnits(listingId, (String) row.get("node_id"));
+                    }
+                    return lapsed.size();
+                });
+            } while (returned > 0);
+        } catch (Exception ex) {
+            log.error("Failed to return lapsed hot stock allotments", ex);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.hot-stock.refresh-interval-ms:5000}")
+    public void refreshHotListings() {
+        try {
+            hotListingIds = Set.copyOf(jdbcTemplate.queryForList(HOT_LISTINGS_SQL, Long.class));
+        } catch (Exception ex) {
+            log.warn("Failed to reload hot stock listings", ex);
+        }
+    }
+
+    /**
+     * Allotments left by this node's previous run lapse and are returned here or by another node.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        refreshHotListings();
+        reconcile();
+        leaseRenewer.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException ex) {
+                // An exception escaping here would cancel the schedule
+                log.error("Hot stock flush failed", ex);
+            }
+        }, 0, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        leaseRenewer.shutdownNow();
+        for (Allotment allotment : new ArrayList<>(allotments.values())) {
+            retire(allotment);
+        }
+        allotter.shutdown();
+        try {
+            if (!allotter.awaitTermination(10, TimeUnit.SECONDS)) {
+                // Whatever wasn't returned lapses and is returned by another node
+                allotter.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void requestRefill(Allotment allotment) {
+        if (allotment.refilling.compareAndSet(false, true)) {
+            allotter.execute(() -> {
+                try {
+                    if (!allotment.retired) {
+                        allotment.giveBack(claim(allotment.listingId, blockSize));
+                    }
+                } catch (Exception ex) {
+                    log.warn("Failed to claim hot stock for listing {}", allotment.listingId, ex);
+                } finally {
+                    allotment.refilling.set(false);
+                }
+            });
+        }
+    }
+
+    private int claim(Long listingId, int units) {
+        Integer claimed = transactionTemplate.execute(status -> {
+            List<Integer> taken = jdbcTemplate.queryForList(CLAIM_SQL, Integer.class, units, listingId);
+            int take = taken.isEmpty() ? 0 : taken.get(0);
+            if (take > 0) {
+                jdbcTemplate.update(ALLOT_SQL, listingId, nodeId, take, leaseMs);
+                eventPublisher.publishEvent(new ListingStockChangedEvent(List.of(listingId)));
+            }
+            return take;
+        });
+        return claimed != null ? claimed : 0;
+    }
+
+    // Units sold but not yet recorded are counted as unsold here; their sale insert then finds
+    // no allotment and the order falls back to the listing row
+    private void retire(Allotment allotment) {
+        allotment.retired = true;
+        allotment.available.set(0);
+        allotments.remove(allotment.listingId, allotment);
+        allotter.execute(() -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.queryForList(LOCK_ALLOTMENT_SQL, allotment.listingId, nodeId);
+                    returnUnits(allotment.listingId, nodeId);
+                });
+            } catch (Exception ex) {
+                // The lease lapses and another pass returns it
+                log.warn("Failed to return hot stock allotment for listing {}", allotment.listingId, ex);
+            }
+        });
+    }
+
+    private void returnUnits(long listingId, String allotmentNodeId) {
+        if (jdbcTemplate.update(RETURN_SQL, listingId, allotmentNodeId, listingId, allotmentNodeId, listingId) > 0) {
+            eventPublisher.publishEvent(new ListingStockChangedEvent(List.of(listingId)));
+        }
+    }
+
+    private static final class Allotment {
+        private final long listingId;
+        private final AtomicInteger available = new AtomicInteger();
+        private final AtomicBoolean refilling = new AtomicBoolean();
+        private volatile boolean retired;
+        private volatile long lastSaleAt = System.currentTimeMillis();
+
+        private Allotment(long listingId) {
+            this.listingId = listingId;
+        }
+
+        private boolean tryTake(int quantity) {
+            int current;
+            do {
+                current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!available.compareAndSet(current, current - quantity));
+            lastSaleAt = System.currentTimeMillis();
+            return true;
+        }
+
+        // A retired allotment's units are returned to the listing with it
+        private void giveBack(int quantity) {
+            if (!retired) {
+                available.addAndGet(quantity);
+            }
+        }
+    }
+}
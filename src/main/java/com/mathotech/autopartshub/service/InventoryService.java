@@ -0,0 +1,129 @@
+package com.mathotech.autopartshub.service;
+
+import com.mathotech.autopartshub.event.ListingStockChangedEvent;
+import com.mathotech.autopartshub.exception.InsufficientStockException;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Listing stock changes made by orders, applied as set-based SQL rather than read-modify-write on
+ * Listing entities, so concurrent checkouts can't both take the last unit.
+ */
+@Service
+@RequiredArgsConstructor
+public class InventoryService {
+
+    // The row lock taken by the UPDATE makes the check and the decrement one step
+    private static final String RESERVE_SQL =
+            "UPDATE listings SET quantity = quantity - ?, updated_at = NOW() " +
+            "WHERE id = ? AND active = true AND quantity >= ?";
+
+    private static final String RELEASE_SQL =
+            "UPDATE listings SET quantity = quantity + ?, updated_at = NOW() WHERE id = ?";
+
+    private static final String STOCK_SQL = "SELECT id, title, active, quantity FROM listings WHERE id IN (%s)";
+
+    private static final String ADJUST_SQL =
+            "UPDATE listings SET quantity = GREATEST(quantity + ?, 0), updated_at = NOW() WHERE id = ?";
+
+    private static final String HOT_STOCK_SQL = "UPDATE listings SET hot_stock = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final HotStockLedger hotStockLedger;
+
+    /**
+     * Takes the given quantity of each listing, all or nothing. Must run inside the transaction
+     * creating the order: on a shortfall nothing is undone here, the exception rolls the whole
+     * transaction back.
+     *
+     * @throws InsufficientStockException naming every listing that is inactive or short
+     * @throws EntityNotFoundException if a listing doesn't exist
+     */
+    public void reserve(Map<Long, Integer> quantities) {
+        // One batch in ID order: a single round trip, and concurrent orders lock shared rows in
+        // the same order so they can't deadlock
+        Map<Long, Integer> sorted = new TreeMap<>(quantities);
+        // Hot listings come out of this node's allotment when it can cover them
+        sorted.entrySet().removeIf(entry -> hotStockLedger.reserve(entry.getKey(), entry.getValue()));
+        if (sorted.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>();
+        sorted.forEach((listingId, quantity) -> rows.add(new Object[] {quantity, listingId, quantity}));
+        int[] updated = jdbcTemplate.batchUpdate(RESERVE_SQL, rows);
+
+        List<Long> failed = new ArrayList<>();
+        int i = 0;
+        for (Long listingId : sorted.keySet()) {
+            if (updated[i++] == 0) {
+                failed.add(listingId);
+            }
+        }
+        if (!failed.isEmpty()) {
+            throw shortfall(failed, sorted);
+        }
+        eventPublisher.publishEvent(new ListingStockChangedEvent(sorted.keySet()));
+    }
+
+    /**
+     * Puts the given quantity of each listing back, as when an order is cancelled or refunded.
+     */
+    public void release(Map<Long, Integer> quantities) {
+        Map<Long, Integer> sorted = new TreeMap<>(quantities);
+        List<Object[]> rows = new ArrayList<>();
+        sorted.forEach((listingId, quantity) -> rows.add(new Object[] {quantity, listingId}));
+        jdbcTemplate.batchUpdate(RELEASE_SQL, rows);
+        eventPublisher.publishEvent(new ListingStockChangedEvent(sorted.keySet()));
+    }
+
+    /**
+     * Applies a seller's stock edit as a change relative to the current count rather than an
+     * absolute value, so units sold since the seller's copy was loaded stay sold.
+     */
+    public void adjust(Long listingId, int delta) {
+        if (delta != 0) {
+            jdbcTemplate.update(ADJUST_SQL, delta, listingId);
+        }
+    }
+
+    /**
+     * Puts a listing in or out of hot-stock mode. Nodes pick the change up on their next refresh;
+     * allotments of a listing taken out are returned by their node's next flush.
+     */
+    public void setHotStock(Long listingId, boolean enabled) {
+        if (jdbcTemplate.update(HOT_STOCK_SQL, enabled, listingId) == 0) {
+            throw new EntityNotFoundException("Listing not found with id: " + listingId);
+        }
+    }
+
+    private RuntimeException shortfall(List<Long> failed, Map<Long, Integer> requested) {
+        Map<Long, InsufficientStockException.Shortfall> found = new HashMap<>();
+        String sql = String.format(STOCK_SQL, String.join(", ", Collections.nCopies(failed.size(), "?")));
+        jdbcTemplate.query(sql, rs -> {
+            long listingId = rs.getLong("id");
+            found.put(listingId, new InsufficientStockException.Shortfall(listingId, rs.getString("title"),
+                    requested.get(listingId), rs.getInt("quantity"), rs.getBoolean("active")));
+        }, failed.toArray());
+
+        List<InsufficientStockException.Shortfall> shortfalls = new ArrayList<>();
+        for (Long listingId : failed) {
+            InsufficientStockException.Shortfall shortfall = found.get(listingId);
+            if (shortfall == null) {
+                return new EntityNotFoundException("Listing not found with id: " + listingId);
+            }
+            shortfalls.add(shortfall);
+        }
+        return new InsufficientStockException(shortfalls);
+    }
+}
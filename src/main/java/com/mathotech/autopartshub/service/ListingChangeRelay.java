@@ -0,0 +1,80 @@
+package com.mathotech.autopartshub.service;
+
+import com.mathotech.autopartshub.config.RedisConfig;
+import com.mathotech.autopartshub.event.ListingChangedEvent;
+import com.mathotech.autopartshub.event.ListingChangedEvent.ChangeType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.UUID;
+
+/**
+ * Passes committed listing changes to the other nodes, so their in-memory fitment and facet
+ * indexes follow edits made anywhere rather than only those made locally. Messages are
+ * {@code nodeId|type|listingId}, or {@code nodeId|REBUILD|} after a bulk change that published no
+ * per-listing events; a node skips its own.
+ * <p>
+ * A lost message leaves a node's indexes stale for that listing until its next rebuild, the
+ * same as the cache evictions sent over Redis.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ListingChangeRelay {
+
+    private static final String REBUILD = "REBUILD";
+
+    private final StringRedisTemplate redisTemplate;
+    private final VehicleFitmentIndex vehicleFitmentIndex;
+    private final ListingFacetIndex listingFacetIndex;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onListingChanged(ListingChangedEvent event) {
+        publish(event.getType().name(), String.valueOf(event.getListingId()));
+    }
+
+    /**
+     * Tells the other nodes to rebuild their fitment index, as this node does after a large import.
+     */
+    public void announceFitmentRebuild() {
+        publish(REBUILD, "");
+    }
+
+    public void onMessage(String message) {
+        String[] parts = message.split("\\|", 3);
+        if (parts.length != 3) {
+            log.warn("Ignoring malformed listing change message '{}'", message);
+            return;
+        }
+        if (nodeId.equals(parts[0])) {
+            return;
+        }
+        if (REBUILD.equals(parts[1])) {
+            vehicleFitmentIndex.rebuildInBackground();
+            return;
+        }
+        ListingChangedEvent event;
+        try {
+            event = new ListingChangedEvent(Long.parseLong(parts[2]), ChangeType.valueOf(parts[1]));
+        } catch (IllegalArgumentException ex) {
+            log.warn("Ignoring malformed listing change message '{}'", message);
+            return;
+        }
+        vehicleFitmentIndex.onRemoteChange(event);
+        listingFacetIndex.onRemoteChange(event);
+    }
+
+    private void publish(String type, String listingId) {
+        try {
+            redisTemplate.convertAndSend(RedisConfig.LISTING_CHANGE_CHANNEL, nodeId + "|" + type + "|" + listingId);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to announce listing change {} {}: {}", type, listingId, ex.getMessage());
+        }
+    }
+}
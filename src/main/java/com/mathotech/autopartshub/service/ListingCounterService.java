@@ -0,0 +1,283 @@
+package com.mathotech.autopartshub.service;
+
+import com.mathotech.autopartshub.model.Listing;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Active listing counts per category and brand for the category and brand menus.
+ * <p>
+ * The listing_counters table is adjusted in the same transaction as each listing write, so it
+ * never disagrees with committed listings except through a lost race with {@link #reconcile()}.
+ * Reads come from an in-memory copy: raw counts are patched after each local commit and the whole
+ * copy is reloaded from the table on a short interval to pick up other instances' writes. A full
+ * recount corrects the table on a longer interval.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ListingCounterService {
+
+    private static final String CATEGORY = "CATEGORY";
+    private static final String BRAND = "BRAND";
+
+    private static final String INCREMENT_SQL =
+            "INSERT INTO listing_counters (kind, ref_id, active_count) VALUES (?, ?, ?) " +
+            "ON CONFLICT (kind, ref_id) DO UPDATE " +
+            "SET active_count = listing_counters.active_count + EXCLUDED.active_count";
+
+    private static final String LOAD_SQL = "SELECT kind, ref_id, active_count FROM listing_counters";
+
+    private static final String RECOUNT_SQL =
+            "INSERT INTO listing_counters (kind, ref_id, active_count) " +
+            "SELECT kind, ref_id, active_count FROM (" +
+            "  SELECT 'CATEGORY' AS kind, category_id AS ref_id, COUNT(*) AS active_count " +
+            "  FROM listings WHERE active GROUP BY category_id " +
+            "  UNION ALL " +
+            "  SELECT 'BRAND', brand_id, COUNT(*) " +
+            "  FROM listings WHERE active AND brand_id IS NOT NULL GROUP BY brand_id" +
+            ") recount " +
+            "ON CONFLICT (kind, ref_id) DO UPDATE SET active_count = EXCLUDED.active_count " +
+            "WHERE listing_counters.active_count <> EXCLUDED.active_count";
+
+    private static final String ZERO_CATEGORIES_SQL =
+            "UPDATE listing_counters c SET active_count = 0 " +
+            "WHERE c.kind = 'CATEGORY' AND c.active_count <> 0 " +
+            "AND NOT EXISTS (SELECT 1 FROM listings l WHERE l.active AND l.category_id = c.ref_id)";
+
+    private static final String ZERO_BRANDS_SQL =
+            "UPDATE listing_counters c SET active_count = 0 " +
+            "WHERE c.kind = 'BRAND' AND c.active_count <> 0 " +
+            "AND NOT EXISTS (SELECT 1 FROM listings l WHERE l.active AND l.brand_id = c.ref_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CategoryTree categoryTree;
+
+    private volatile Counts counts = new Counts();
+
+    /**
+     * The number of active listings in the category or any of its subcategories, matching what
+     * browsing the category returns.
+     */
+    public long categoryCount(Long categoryId) {
+        return counts.categoryTotals().getOrDefault(categoryId, 0L);
+    }
+
+    public long brandCount(Long brandId) {
+        return counts.byBrand.getOrDefault(brandId, 0L);
+    }
+
+    /**
+     * Identifies the counts currently served, for ETags. Derived from the counts themselves, so
+     * nodes holding the same counts agree on it, and it only changes when a count does.
+     */
+    public long getVersion() {
+        return counts.stamp();
+    }
+
+    /**
+     * Moves the listing's counts from where it was counted to where it's counted now. Pass null as
+     * {@code before} for a new listing and as {@code after} for a deleted one. Must run inside the
+     * transaction that writes the listing.
+     */
+    public void recordChange(CountedState before, CountedState after) {
+        // Sorted so concurrent writers lock counter rows in the same order
+        Map<Long, Long> categoryDeltas = new TreeMap<>();
+        Map<Long, Long> brandDeltas = new TreeMap<>();
+        if (before != null && before.active) {
+            categoryDeltas.merge(before.categoryId, -1L, Long::sum);
+            if (before.brandId != null) {
+                brandDeltas.merge(before.brandId, -1L, Long::sum);
+            }
+        }
+        if (after != null && after.active) {
+            categoryDeltas.merge(after.categoryId, 1L, Long::sum);
+            if (after.brandId != null) {
+                brandDeltas.merge(after.brandId, 1L, Long::sum);
+            }
+        }
+        categoryDeltas.values().removeIf(delta -> delta == 0);
+        brandDeltas.values().removeIf(delta -> delta == 0);
+        if (categoryDeltas.isEmpty() && brandDeltas.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        categoryDeltas.forEach((id, delta) -> rows.add(new Object[] {CATEGORY, id, delta}));
+        brandDeltas.forEach((id, delta) -> rows.add(new Object[] {BRAND, id, delta}));
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, rows);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                counts.apply(categoryDeltas, brandDeltas);
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        refresh();
+    }
+
+    /**
+     * Replaces the in-memory counts with the table. A local commit whose patch lands just after
+     * a reload that already saw it is counted twice until the next reload.
+     */
+    @Scheduled(fixedDelayString = "${app.listing-counters.refresh-interval-ms:30000}",
+            initialDelayString = "${app.listing-counters.refresh-interval-ms:30000}")
+    public void refresh() {
+        try {
+            Counts fresh = new Counts();
+            jdbcTemplate.query(LOAD_SQL, rs -> {
+                Map<Long, Long> target = CATEGORY.equals(rs.getString("kind")) ? fresh.byCategory : fresh.byBrand;
+                target.put(rs.getLong("ref_id"), rs.getLong("active_count"));
+            });
+            // Keeping an unchanged copy keeps its stamp and rolled-up totals
+            if (!fresh.sameAs(counts)) {
+                counts = fresh;
+            }
+        } catch (Exception ex) {
+            log.error("Failed to load listing counters", ex);
+        }
+    }
+
+    /**
+     * Recounts from the listings table and corrects any counter that has drifted.
+     */
+    @Scheduled(fixedDelayString = "${app.listing-counters.reconcile-interval-ms:3600000}",
+            initialDelayString = "${app.listing-counters.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        try {
+            int corrected = jdbcTemplate.update(RECOUNT_SQL)
+                    + jdbcTemplate.update(ZERO_CATEGORIES_SQL)
+                    + jdbcTemplate.update(ZERO_BRANDS_SQL);
+            if (corrected > 0) {
+                log.warn("Corrected {} drifted listing counters", corrected);
+            }
+            refresh();
+        } catch (Exception ex) {
+            log.error("Failed to reconcile listing counters", ex);
+        }
+    }
+
+    /**
+     * Where a listing is counted: its category and brand, if it's active.
+     */
+    public static final class CountedState {
+        private final Long categoryId;
+        private final Long brandId;
+        private final boolean active;
+
+        private CountedState(Long categoryId, Long brandId, boolean active) {
+            this.categoryId = categoryId;
+            this.brandId = brandId;
+            this.active = active;
+        }
+
+        public static CountedState of(Listing listing) {
+            return new CountedState(listing.getCategory().getId(),
+                    listing.getBrand() != null ? listing.getBrand().getId() : null,
+                    listing.isActive());
+        }
+    }
+
+    private final class Counts {
+        private final Map<Long, Long> byCategory = new ConcurrentHashMap<>();
+        private final Map<Long, Long> byBrand = new ConcurrentHashMap<>();
+
+        // Category counts rolled up into their ancestors; rebuilt on the first read after a change
+        private volatile Map<Long, Long> categoryTotals;
+        private volatile Long stamp;
+        private long version;
+
+        Map<Long, Long> categoryTotals() {
+            Map<Long, Long> totals = categoryTotals;
+            if (totals != null) {
+                return totals;
+            }
+
+            long seen;
+            Map<Long, Long> raw;
+            synchronized (this) {
+                seen = version;
+                raw = Map.copyOf(byCategory);
+            }
+            totals = categoryTree.rollUp(raw);
+            synchronized (this) {
+                // A patch applied while rolling up would otherwise be hidden until the next one
+                if (version == seen) {
+                    categoryTotals = totals;
+                }
+            }
+            return totals;
+        }
+
+        long stamp() {
+            Long current = stamp;
+            if (current != null) {
+                return current;
+            }
+            synchronized (this) {
+                if (stamp == null) {
+                    stamp = digest();
+                }
+                return stamp;
+            }
+        }
+
+        /**
+         * The first 64 bits of a SHA-256 over every nonzero count in id order. Map.hashCode
+         * won't do: it sums key ^ value, so a new 1 -> 1 entry or offsetting changes leave it as
+         * it was.
+         */
+        private long digest() {
+            MessageDigest sha256;
+            try {
+                sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException("SHA-256 is not available", ex);
+            }
+            ByteBuffer entry = ByteBuffer.allocate(Long.BYTES * 2);
+            for (Map<Long, Long> counts : List.of(byCategory, byBrand)) {
+                new TreeMap<>(counts).forEach((id, count) -> {
+                    if (count != 0) {
+                        entry.clear();
+                        sha256.update(entry.putLong(id).putLong(count).array());
+                    }
+                });
+                // Separates the category counts from the brand counts
+                sha256.update((byte) 0xFF);
+            }
+            return ByteBuffer.wrap(sha256.digest()).getLong();
+        }
+
+        synchronized boolean sameAs(Counts other) {
+            return byCategory.equals(other.byCategory) && byBrand.equals(other.byBrand);
+        }
+
+        synchronized void apply(Map<Long, Long> categoryDeltas, Map<Long, Long> brandDeltas) {
+            categoryDeltas.forEach((id, delta) -> byCategory.merge(id, delta, Long::sum));
+            brandDeltas.forEach((id, delta) -> byBrand.merge(id, delta, Long::sum));
+            version++;
+            categoryTotals = null;
+            stamp = null;
+        }
+    }
+}
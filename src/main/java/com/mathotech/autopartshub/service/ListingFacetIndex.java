@@ -0,0 +1,549 @@
+package com.mathotech.autopartshub.service;
+
+import com.mathotech.autopartshub.dto.listing.ListingBrowseFilter;
+import com.mathotech.autopartshub.dto.listing.PriceBucket;
+import com.mathotech.autopartshub.event.ListingChangedEvent;
+import com.mathotech.autopartshub.model.Condition;
+import com.mathotech.autopartshub.repository.ListingSortKey;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.CollectionUtils;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory facet engine for the filter browse endpoint. Active listings are held as bitmaps keyed
+ * by listing id, one per condition, price bucket and rating bucket, plus columns of each listing's
+ * category, brand and sort values. Listing ids are BIGSERIAL values with few gaps, so a bitmap
+ * over all active listings stays compact; a single category or brand covers a sparse slice of
+ * them, so those are columns rather than a bitmap per value. A filter is a few bitmap ANDs and
+ * ORs. Facet counts, each facet counted with the other facets' selections applied, come from one
+ * pass over the active listings, so the UI can show counts next to every option without any COUNT
+ * queries or per-request bitmap copies.
+ * <p>
+ * Loaded in the background at startup and kept current via {@link ListingChangedEvent}, local or
+ * relayed from other nodes by {@link ListingChangeRelay}; until the first load finishes,
+ * {@link #search} returns empty and callers use SQL.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ListingFacetIndex {
+
+    private static final String LOAD_SQL =
+            "SELECT id, category_id, brand_id, condition, price, average_rating, created_at " +
+            "FROM listings WHERE active = TRUE";
+
+    private static final int CATEGORY = 0;
+    private static final int BRAND = 1;
+    private static final int CONDITION = 2;
+    private static final int PRICE = 3;
+    private static final int RATING = 4;
+    private static final int FACETS = 5;
+
+    // Floor of the average rating, 0-5; unrated listings count as 0
+    private static final int RATING_BUCKETS = 6;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CategoryTree categoryTree;
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "listing-facet-load");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Bitmaps aren't thread-safe; searches share the read lock and listing updates take the write lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<Long> changedDuringLoad = ConcurrentHashMap.newKeySet();
+
+    private volatile Columns columns;
+    private volatile boolean loading;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        loader.submit(this::rebuild);
+    }
+
+    public void rebuild() {
+        loading = true;
+        try {
+            long started = System.currentTimeMillis();
+            Columns fresh = new Columns();
+            jdbcTemplate.query(LOAD_SQL, rs -> {
+                fresh.put(rs);
+            });
+
+            lock.writeLock().lock();
+            try {
+                columns = fresh;
+                loading = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            List<Long> changed = new ArrayList<>(changedDuringLoad);
+            changedDuringLoad.removeAll(changed);
+            changed.forEach(this::reload);
+            log.info("Loaded listing facet index: {} active listings in {} ms",
+                    fresh.active.cardinality(), System.currentTimeMillis() - started);
+        } catch (Exception ex) {
+            loading = false;
+            log.error("Failed to load listing facet index", ex);
+        }
+    }
+
+    /**
+     * Returns the IDs for one page of matching listings in sort order, the total, and facet counts
+     * if asked for. Empty when the index isn't loaded or the filter uses fields it doesn't hold
+     * (seller, vehicle fitment, inactive listings).
+     */
+    public Optional<FacetSearch> search(ListingBrowseFilter filter, ListingSortKey sortKey, Sort.Direction direction,
+                                        long offset, int limit, boolean withFacets) {
+        if (!filter.isActiveOnly() || filter.getSellerId() != null
+                || (filter.getModelId() != null && filter.getYear() != null)) {
+            return Optional.empty();
+        }
+
+        long total;
+        long[] ids;
+        FacetCounts counts = null;
+        lock.readLock().lock();
+        try {
+            Columns current = columns;
+            if (current == null) {
+                return Optional.empty();
+            }
+            BitSet[] selections = current.selections(filter);
+            BitSet matches = current.intersect(selections, -1);
+            total = matches.cardinality();
+            ids = current.page(matches, sortKey, direction, offset, limit);
+            if (withFacets) {
+                counts = current.facetCounts(selections);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<String, Map<String, Long>> facets = null;
+        if (withFacets) {
+            // Rolled up outside the lock, since the first call may load the category tree
+            facets = new LinkedHashMap<>();
+            facets.put("category", Columns.sortByCount(categoryTree.rollUp(counts.categories)));
+            facets.putAll(counts.others);
+        }
+        return Optional.of(new FacetSearch(ids, total, facets));
+    }
+
+    public boolean isLoaded() {
+        return columns != null;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        try {
+            if (loading) {
+                changedDuringLoad.add(event.getListingId());
+            }
+            if (event.getType() == ListingChangedEvent.ChangeType.DELETED) {
+                apply(event.getListingId(), null);
+            } else {
+                reload(event.getListingId());
+            }
+        } catch (Exception ex) {
+            log.warn("Failed to update facet index for listing {}: {}", event.getListingId(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Applies a change committed on another node. Runs on the loader thread, so a change that
+     * arrives during a rebuild is applied after it.
+     */
+    public void onRemoteChange(ListingChangedEvent event) {
+        loader.submit(() -> onListingChanged(event));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    private void reload(Long listingId) {
+        List<Row> rows = jdbcTemplate.query(LOAD_SQL + " AND id = ?", (rs, rowNum) -> new Row(rs), listingId);
+        apply(listingId, rows.isEmpty() ? null : rows.get(0));
+    }
+
+    private void apply(Long listingId, Row row) {
+        lock.writeLock().lock();
+        try {
+            if (columns != null) {
+                columns.remove(Columns.index(listingId));
+                if (row != null) {
+                    columns.put(row);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class FacetSearch {
+        private final long[] listingIds;
+        private final long total;
+        private final Map<String, Map<String, Long>> facets;
+    }
+
+    private static final class FacetCounts {
+        // Listings filed directly under each category, before rolling up into parents
+        private final Map<Long, Long> categories = new HashMap<>();
+        private final Map<String, Map<String, Long>> others = new LinkedHashMap<>();
+    }
+
+    private static final class Row {
+        private final long id;
+        private final long categoryId;
+        private final long brandId;
+        private final Condition condition;
+        private final BigDecimal price;
+        private final BigDecimal averageRating;
+        private final long createdAt;
+
+        private Row(ResultSet rs) throws SQLException {
+            id = rs.getLong("id");
+            categoryId = rs.getLong("category_id");
+            brandId = rs.getLong("brand_id");  // 0 when null
+            condition = Condition.valueOf(rs.getString("condition"));
+            price = rs.getBigDecimal("price");
+            averageRating = rs.getBigDecimal("average_rating");
+            createdAt = rs.getTimestamp("created_at").getTime();
+        }
+    }
+
+    /**
+     * Bitmaps per facet value, plus per-listing columns (indexed by listing id) used to clear a
+     * listing's bits when it changes and to sort matches.
+     */
+    private static final class Columns {
+        private final BitSet active = new BitSet();
+        private final BitSet[] byCondition = bitSets(Condition.values().length);
+        private final BitSet[] byPrice = bitSets(PriceBucket.values().length);
+        private final BitSet[] byRating = bitSets(RATING_BUCKETS);
+
+        private long[] categoryIds = new long[0];
+        private long[] brandIds = new long[0];
+        private byte[] conditions = new byte[0];
+        private byte[] priceBuckets = new byte[0];
+        private byte[] ratingBuckets = new byte[0];
+        private long[] createdAt = new long[0];
+        private long[] priceCents = new long[0];
+        private int[] ratingHundredths = new int[0];
+
+        static int index(long listingId) {
+            if (listingId < 0 || listingId > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Listing id " + listingId + " is outside the facet index range");
+            }
+            return (int) listingId;
+        }
+
+        void put(ResultSet rs) throws SQLException {
+            put(new Row(rs));
+        }
+
+        void put(Row row) {
+            int id = index(row.id);
+            ensureCapacity(id + 1);
+            remove(id);
+
+            PriceBucket priceBucket = PriceBucket.of(row.price);
+            int rating = row.averageRating != null ? row.averageRating.intValue() : 0;
+            categoryIds[id] = row.categoryId;
+            brandIds[id] = row.brandId;
+            conditions[id] = (byte) row.condition.ordinal();
+            priceBuckets[id] = (byte) priceBucket.ordinal();
+            ratingBuckets[id] = (byte) Math.min(Math.max(rating, 0), RATING_BUCKETS - 1);
+            createdAt[id] = row.createdAt;
+            priceCents[id] = row.price.movePointRight(2).longValue();
+            ratingHundredths[id] = row.averageRating != null ? row.averageRating.movePointRight(2).intValue() : 0;
+
+            active.set(id);
+            byCondition[conditions[id]].set(id);
+            byPrice[priceBuckets[id]].set(id);
+            byRating[ratingBuckets[id]].set(id);
+        }
+
+        void remove(int id) {
+            if (id >= categoryIds.length || !active.get(id)) {
+                return;
+            }
+            active.clear(id);
+            byCondition[conditions[id]].clear(id);
+            byPrice[priceBuckets[id]].clear(id);
+            byRating[ratingBuckets[id]].clear(id);
+        }
+
+        /**
+         * The listings each facet's selection allows, or null where the facet isn't filtered. A
+         * single-valued field and its list counterpart must both match, as in SQL.
+         */
+        BitSet[] selections(ListingBrowseFilter filter) {
+            BitSet[] selections = new BitSet[FACETS];
+            selections[CATEGORY] = select(categoryIds, filter.getCategoryIds(), filter.getCategoryId());
+            selections[BRAND] = select(brandIds, filter.getBrandIds(), filter.getBrandId());
+
+            List<Integer> conditionValues = new ArrayList<>();
+            if (filter.getConditions() != null) {
+                filter.getConditions().forEach(condition -> conditionValues.add(condition.ordinal()));
+            }
+            selections[CONDITION] = union(byCondition, conditionValues);
+            if (filter.getCondition() != null) {
+                selections[CONDITION] = and(selections[CONDITION], byCondition[filter.getCondition().ordinal()]);
+            }
+
+            List<Integer> priceValues = new ArrayList<>();
+            if (filter.getPriceBuckets() != null) {
+                filter.getPriceBuckets().forEach(bucket -> priceValues.add(bucket.ordinal()));
+            }
+            selections[PRICE] = union(byPrice, priceValues);
+
+            if (filter.getMinRating() != null) {
+                List<Integer> ratingValues = new ArrayList<>();
+                for (int bucket = Math.max(filter.getMinRating(), 0); bucket < RATING_BUCKETS; bucket++) {
+                    ratingValues.add(bucket);
+                }
+                selections[RATING] = ratingValues.isEmpty() ? new BitSet() : union(byRating, ratingValues);
+            }
+            return selections;
+        }
+
+        /**
+         * Active listings matching every selection except the one at skip (-1 for none).
+         */
+        BitSet intersect(BitSet[] selections, int skip) {
+            BitSet result = (BitSet) active.clone();
+            for (int facet = 0; facet < FACETS; facet++) {
+                if (facet != skip && selections[facet] != null) {
+                    result.and(selections[facet]);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Top offset + limit matches with a bounded heap, in the same (key, id) order as the SQL
+         * browse queries, so only one page of listings has to be loaded.
+         */
+        long[] page(BitSet matches, ListingSortKey sortKey, Sort.Direction direction, long offset, int limit) {
+            long total = matches.cardinality();
+            if (offset >= total || limit <= 0) {
+                return new long[0];
+            }
+            int wanted = (int) Math.min(offset + limit, total);
+
+            Comparator<Integer> order = Comparator.<Integer>comparingLong(id -> sortValue(sortKey, id))
+                    .thenComparingInt(id -> id);
+            if (direction.isDescending()) {
+                order = order.reversed();
+            }
+            PriorityQueue<Integer> heap = new PriorityQueue<>(wanted, order.reversed());
+            for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1)) {
+                if (heap.size() < wanted) {
+                    heap.add(id);
+                } else if (order.compare(id, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(id);
+                }
+            }
+
+            Integer[] sorted = heap.toArray(new Integer[0]);
+            Arrays.sort(sorted, order);
+            long[] ids = new long[sorted.length - (int) offset];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = sorted[(int) offset + i];
+            }
+            return ids;
+        }
+
+        /**
+         * Counts for every facet in one pass. A listing counts towards a facet when it matches
+         * every other facet's selection, so one that fails no selection counts everywhere, one
+         * that fails a single selection counts only for that facet, and any other is skipped.
+         */
+        FacetCounts facetCounts(BitSet[] selections) {
+            long[] perCondition = new long[Condition.values().length];
+            long[] perPrice = new long[PriceBucket.values().length];
+            long[] perRating = new long[RATING_BUCKETS];
+            Map<Long, long[]> perCategory = new HashMap<>();
+            Map<Long, long[]> perBrand = new HashMap<>();
+
+            for (int id = active.nextSetBit(0); id >= 0; id = active.nextSetBit(id + 1)) {
+                int failed = -1;
+                boolean counted = true;
+                for (int facet = 0; facet < FACETS; facet++) {
+                    if (selections[facet] != null && !selections[facet].get(id)) {
+                        if (failed != -1) {
+                            counted = false;
+                            break;
+                        }
+                        failed = facet;
+                    }
+                }
+                if (!counted) {
+                    continue;
+                }
+                if (failed == -1 || failed == CATEGORY) {
+                    perCategory.computeIfAbsent(categoryIds[id], k -> new long[1])[0]++;
+                }
+                if ((failed == -1 || failed == BRAND) && brandIds[id] != 0) {
+                    perBrand.computeIfAbsent(brandIds[id], k -> new long[1])[0]++;
+                }
+                if (failed == -1 || failed == CONDITION) {
+                    perCondition[conditions[id]]++;
+                }
+                if (failed == -1 || failed == PRICE) {
+                    perPrice[priceBuckets[id]]++;
+                }
+                if (failed == -1 || failed == RATING) {
+                    perRating[ratingBuckets[id]]++;
+                }
+            }
+
+            FacetCounts counts = new FacetCounts();
+            perCategory.forEach((key, count) -> counts.categories.put(key, count[0]));
+
+            Map<Long, Long> brandCounts = new HashMap<>();
+            perBrand.forEach((key, count) -> brandCounts.put(key, count[0]));
+            counts.others.put("brand", sortByCount(brandCounts));
+
+            Map<String, Long> conditionCounts = new LinkedHashMap<>();
+            for (Condition condition : Condition.values()) {
+                putIfPositive(conditionCounts, condition.name(), perCondition[condition.ordinal()]);
+            }
+            counts.others.put("condition", conditionCounts);
+
+            Map<String, Long> priceCounts = new LinkedHashMap<>();
+            for (PriceBucket bucket : PriceBucket.values()) {
+                putIfPositive(priceCounts, bucket.name(), perPrice[bucket.ordinal()]);
+            }
+            counts.others.put("price", priceCounts);
+
+            // Cumulative: "4" is 4 stars and up
+            Map<String, Long> ratingCounts = new LinkedHashMap<>();
+            long andUp = perRating[RATING_BUCKETS - 1];
+            for (int rating = RATING_BUCKETS - 2; rating >= 1; rating--) {
+                andUp += perRating[rating];
+                putIfPositive(ratingCounts, String.valueOf(rating), andUp);
+            }
+            counts.others.put("rating", ratingCounts);
+            return counts;
+        }
+
+        private long sortValue(ListingSortKey sortKey, int id) {
+            return switch (sortKey) {
+                case CREATED_AT -> createdAt[id];
+                case PRICE -> priceCents[id];
+                case AVERAGE_RATING -> ratingHundredths[id];
+            };
+        }
+
+        private void ensureCapacity(int size) {
+            if (size <= categoryIds.length) {
+                return;
+            }
+            int capacity = Math.max(size, categoryIds.length + (categoryIds.length >> 1) + 1024);
+            categoryIds = Arrays.copyOf(categoryIds, capacity);
+            brandIds = Arrays.copyOf(brandIds, capacity);
+            conditions = Arrays.copyOf(conditions, capacity);
+            priceBuckets = Arrays.copyOf(priceBuckets, capacity);
+            ratingBuckets = Arrays.copyOf(ratingBuckets, capacity);
+            createdAt = Arrays.copyOf(createdAt, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            ratingHundredths = Arrays.copyOf(ratingHundredths, capacity);
+        }
+
+        /**
+         * Active listings whose column value is one of the values and equal to single, where
+         * given; null when neither is.
+         */
+        private BitSet select(long[] column, List<Long> values, Long single) {
+            boolean listed = !CollectionUtils.isEmpty(values);
+            if (!listed && single == null) {
+                return null;
+            }
+            long[] allowed;
+            if (single == null) {
+                allowed = values.stream().mapToLong(Long::longValue).sorted().toArray();
+            } else {
+                allowed = !listed || values.contains(single) ? new long[] {single} : new long[0];
+            }
+
+            BitSet selection = new BitSet();
+            for (int id = active.nextSetBit(0); id >= 0; id = active.nextSetBit(id + 1)) {
+                if (Arrays.binarySearch(allowed, column[id]) >= 0) {
+                    selection.set(id);
+                }
+            }
+            return selection;
+        }
+
+        private static BitSet union(BitSet[] bitmaps, List<Integer> values) {
+            if (values.isEmpty()) {
+                return null;
+            }
+            BitSet selection = new BitSet();
+            values.forEach(value -> selection.or(bitmaps[value]));
+            return selection;
+        }
+
+        private static BitSet and(BitSet selection, BitSet bits) {
+            BitSet result = selection != null ? selection : (BitSet) bits.clone();
+            if (selection != null) {
+                result.and(bits);
+            }
+            return result;
+        }
+
+        static Map<String, Long> sortByCount(Map<Long, Long> countsByKey) {
+            List<Map.Entry<Long, Long>> counts = new ArrayList<>(countsByKey.entrySet());
+            counts.sort(Map.Entry.<Long, Long>comparingByValue().reversed());
+
+            Map<String, Long> result = new LinkedHashMap<>();
+            counts.forEach(entry -> result.put(String.valueOf(entry.getKey()), entry.getValue()));
+            return result;
+        }
+
+        private static void putIfPositive(Map<String, Long> counts, String key, long count) {
+            if (count > 0) {
+                counts.put(key, count);
+            }
+        }
+
+        private static BitSet[] bitSets(int count) {
+            BitSet[] bitSets = new BitSet[count];
+            for (int i = 0; i < count; i++) {
+                bitSets[i] = new BitSet();
+            }
+            return bitSets;
+        }
+    }
+}
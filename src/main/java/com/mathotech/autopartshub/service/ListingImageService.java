@@ -1,11 +1,14 @@
 package com.mathotech.autopartshub.service;
 
 import com.mathotech.autopartshub.dto.listing.ListingImageDto;
+import com.mathotech.autopartshub.event.ListingChangedEvent;
+import com.mathotech.autopartshub.event.ListingChangedEvent.ChangeType;
 import com.mathotech.autopartshub.model.Listing;
 import com.mathotech.autopartshub.model.ListingImage;
 import com.mathotech.autopartshub.repository.ListingImageRepository;
 import com.mathotech.autopartshub.repository.ListingRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -21,6 +24,7 @@ public class ListingImageService {
     private final ListingRepository listingRepository;
     private final ListingImageRepository listingImageRepository;
     private final FileStorageService fileStorageService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<ListingImageDto> getListingImages(Long listingId) {
         return listingImageRepository.findByListingId(listingId).stream()
@@ -28,6 +32,15 @@ public class ListingImageService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Image changes touch the listing's updated_at, so its timestamp versions the image list.
+     */
+    public String getListingImagesEtag(Long listingId) {
+        return listingRepository.findVersionById(listingId)
+                .map(version -> ETags.of("images", listingId, version.getUpdatedAt()))
+                .orElseGet(() -> ETags.of("images", listingId, "none"));
+    }
+
     @Transactional
     public ListingImageDto addImageToListing(Long listingId, MultipartFile file, boolean isPrimary, Long sellerId) {
         // Find listing and check ownership
@@ -63,6 +76,8 @@ public class ListingImageService {
         listingImage.setPrimary(isPrimary);
         
         ListingImage savedImage = listingImageRepository.save(listingImage);
+        listingRepository.touch(listingId);
+        eventPublisher.publishEvent(new ListingChangedEvent(listingId, ChangeType.UPDATED));
         
         return mapToDto(savedImage);
     }
@@ -86,6 +101,8 @@ public class ListingImageService {
         
         // Delete the image record
         listingImageRepository.deleteById(imageId);
+        listingRepository.touch(image.getListing().getId());
+        eventPublisher.publishEvent(new ListingChangedEvent(image.getListing().getId(), ChangeType.UPDATED));
     }
 
     @Transactional
@@ -108,6 +125,8 @@ public class ListingImageService {
         // Set this image as primary
         image.setPrimary(true);
         listingImageRepository.save(image);
+        listingRepository.touch(image.getListing().getId());
+        eventPublisher.publishEvent(new ListingChangedEvent(image.getListing().getId(), ChangeType.UPDATED));
     }
 
     private ListingImageDto mapToDto(ListingImage image) {
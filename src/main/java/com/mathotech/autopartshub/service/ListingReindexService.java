@@ -0,0 +1,439 @@
+package com.mathotech.autopartshub.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.indices.update_aliases.Action;
+import com.mathotech.autopartshub.dto.listing.ReindexStatusDto;
+import com.mathotech.autopartshub.event.ListingChangedEvent;
+import com.mathotech.autopartshub.model.Condition;
+import com.mathotech.autopartshub.model.ListingDocument;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Owns the physical listings indexes. The application always reads and writes through the
+ * {@code listings} alias; a full reindex builds a fresh {@code listings_v<timestamp>} index from
+ * the database and swaps the alias atomically once it has caught up.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ListingReindexService {
+
+    private static final String ALIAS = "listings";
+    private static final DateTimeFormatter VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private static final String LISTING_BATCH_SQL =
+            "SELECT l.id, l.title, l.description, l.oem_part_number, l.aftermarket_part_number, " +
+            "l.seller_id, s.business_name, l.category_id, c.name AS category_name, " +
+            "l.brand_id, b.name AS brand_name, l.condition, l.price, l.quantity, " +
+            "l.average_rating, l.total_ratings, l.active, l.is_featured, l.created_at, l.updated_at " +
+            "FROM listings l " +
+            "JOIN sellers s ON s.user_id = l.seller_id " +
+            "JOIN categories c ON c.id = l.category_id " +
+            "LEFT JOIN brands b ON b.id = l.brand_id " +
+            "WHERE l.id > ? AND l.id <= ? ORDER BY l.id LIMIT ?";
+
+    private static final String FITMENT_BATCH_SQL =
+            "SELECT listing_id, make_id, model_id, year_start, year_end, engine_id, trim_id " +
+            "FROM compatibility_mappings WHERE listing_id BETWEEN ? AND ?";
+
+    private static final String PRIMARY_IMAGE_BATCH_SQL =
+            "SELECT listing_id, image_url FROM listing_images " +
+            "WHERE is_primary = TRUE AND listing_id BETWEEN ? AND ?";
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchClient elasticsearchClient;
+    private final JdbcTemplate jdbcTemplate;
+    private final ListingSearchService listingSearchService;
+
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "listing-reindex"));
+
+    private volatile ReindexJob currentJob;
+
+    @Value("${app.search.reindex.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.search.reindex.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.search.replicas:1}")
+    private int replicas;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndex() {
+        try {
+            if (resolveAliasTargets().isEmpty() && !concreteIndexExists()) {
+                String indexName = newIndexName();
+                createIndex(indexName, Map.of());
+                elasticsearchClient.indices().updateAliases(u -> u.actions(
+                        Action.of(a -> a.add(add -> add.index(indexName).alias(ALIAS)))));
+                log.info("Created listings search index {} behind alias {}", indexName, ALIAS);
+            }
+        } catch (Exception ex) {
+            // Search is best-effort; the app must still start when Elasticsearch is down
+            log.warn("Could not initialise listings search index: {}", ex.getMessage());
+        }
+    }
+
+    public synchronized ReindexStatusDto startReindex() {
+        if (currentJob != null && currentJob.state.equals("RUNNING")) {
+            throw new IllegalStateException("A listings reindex is already running");
+        }
+
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM listings", Long.class);
+        ReindexJob job = new ReindexJob(newIndexName(), total != null ? total : 0L);
+        currentJob = job;
+        coordinator.submit(() -> runReindex(job));
+
+        return job.toDto();
+    }
+
+    public ReindexStatusDto getStatus() {
+        ReindexJob job = currentJob;
+        if (job == null) {
+            throw new IllegalStateException("No listings reindex has been started");
+        }
+        return job.toDto();
+    }
+
+    /**
+     * Listings written while a reindex is in flight may have been read before the change; remember
+     * them so they can be re-synced into the new index before and after the alias swap.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onListingChanged(ListingChangedEvent event) {
+        ReindexJob job = currentJob;
+        if (job != null && job.tracking) {
+            job.touchedIds.add(event.getListingId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+    }
+
+    private void runReindex(ReindexJob job) {
+        IndexCoordinates target = IndexCoordinates.of(job.indexName);
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        boolean live = false;
+        try {
+            // Replicas and refreshes are pure overhead during a bulk load
+            createIndex(job.indexName, Map.of(
+                    "index.refresh_interval", "-1",
+                    "index.number_of_replicas", 0));
+
+            // Each worker runs one bulk request at a time, so in-flight batches are bounded by parallelism
+            List<CompletableFuture<Void>> ranges = splitIdRange().stream()
+                    .map(range -> CompletableFuture.runAsync(() -> indexRange(job, range[0], range[1], target), workers))
+                    .collect(Collectors.toList());
+            // The job is lost once one range fails, so the others stop rather than load a dead index
+            for (CompletableFuture<Void> range : ranges) {
+                range.whenComplete((ignored, ex) -> {
+                    if (ex != null) {
+                        job.cancelled = true;
+                        ranges.forEach(other -> other.cancel(false));
+                    }
+                });
+            }
+            CompletableFuture.allOf(ranges.toArray(new CompletableFuture[0])).join();
+
+            // A partial index would hide the failed listings from search once the alias moved
+            if (job.failed.get() > 0) {
+                throw new IllegalStateException(job.failed.get() + " listings could not be indexed");
+            }
+
+            elasticsearchClient.indices().putSettings(p -> p
+                    .index(job.indexName)
+                    .settings(s -> s.refreshInterval(t -> t.time("1s")).numberOfReplicas(String.valueOf(replicas))));
+
+            drainTouched(job, target);
+            List<String> previous = swapAlias(job.indexName);
+            live = true;
+            drainTouched(job, target);
+            job.tracking = false;
+            elasticsearchOperations.indexOps(target).refresh();
+
+            for (String oldIndex : previous) {
+                elasticsearchClient.indices().delete(d -> d.index(oldIndex));
+            }
+
+            job.finish("COMPLETED", null);
+            log.info("Reindexed {} listings into {} at {} docs/s",
+                    job.indexed.get(), job.indexName, String.format("%.0f", job.docsPerSecond()));
+        } catch (Exception ex) {
+            job.cancelled = true;
+            job.tracking = false;
+            job.finish("FAILED", ex.getMessage());
+            log.error("Listings reindex into {} failed", job.indexName, ex);
+            if (live) {
+                // Search already reads the new index; only the old one's cleanup is left undone
+                return;
+            }
+            try {
+                // Let ranges still mid-batch stop before the index goes away under them
+                workers.shutdownNow();
+                workers.awaitTermination(30, TimeUnit.SECONDS);
+                elasticsearchOperations.indexOps(target).delete();
+            } catch (Exception cleanupEx) {
+                log.warn("Could not remove partial index {}: {}", job.indexName, cleanupEx.getMessage());
+            }
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    private void indexRange(ReindexJob job, long fromExclusive, long toInclusive, IndexCoordinates target) {
+        long lastId = fromExclusive;
+        while (!job.cancelled) {
+            List<ListingDocument> batch = loadBatch(lastId, toInclusive);
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            List<IndexQuery> queries = batch.stream()
+                    .map(document -> new IndexQueryBuilder()
+                            .withId(String.valueOf(document.getId()))
+                            .withObject(document)
+                            .build())
+                    .collect(Collectors.toList());
+            Set<String> rejected = bulkIndex(queries, target);
+            // Usually bulk rejections under load; retry just those documents once
+            Set<String> failedIds = rejected.isEmpty() ? rejected : bulkIndex(queries.stream()
+                    .filter(query -> rejected.contains(query.getId()))
+                    .collect(Collectors.toList()), target);
+            job.failed.addAndGet(failedIds.size());
+            job.indexed.addAndGet(queries.size() - failedIds.size());
+
+            lastId = batch.get(batch.size() - 1).getId();
+            if (batch.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Indexes the documents and returns the ids of any that failed.
+     */
+    private Set<String> bulkIndex(List<IndexQuery> queries, IndexCoordinates target) {
+        try {
+            elasticsearchOperations.bulkIndex(queries, target);
+            return Collections.emptySet();
+        } catch (BulkFailureException ex) {
+            return ex.getFailedDocuments().keySet();
+        }
+    }
+
+    /**
+     * Loads one keyset page of listings plus their fitments and primary images in three queries,
+     * bypassing JPA so millions of rows don't pass through the persistence context.
+     */
+    private List<ListingDocument> loadBatch(long afterId, long toInclusive) {
+        List<ListingDocument> documents = jdbcTemplate.query(
+                LISTING_BATCH_SQL, (rs, rowNum) -> mapDocument(rs), afterId, toInclusive, batchSize);
+        if (documents.isEmpty()) {
+            return documents;
+        }
+
+        long firstId = documents.get(0).getId();
+        long lastId = documents.get(documents.size() - 1).getId();
+        Map<Long, ListingDocument> byId = documents.stream()
+                .collect(Collectors.toMap(ListingDocument::getId, document -> document));
+
+        jdbcTemplate.query(FITMENT_BATCH_SQL, rs -> {
+            ListingDocument document = byId.get(rs.getLong("listing_id"));
+            if (document != null) {
+                document.getCompatibilityMappings().add(ListingDocument.Fitment.builder()
+                        .makeId(rs.getInt("make_id"))
+                        .modelId(rs.getInt("model_id"))
+                        .yearStart(rs.getInt("year_start"))
+                        .yearEnd(rs.getInt("year_end"))
+                        .engineId(rs.getObject("engine_id", Integer.class))
+                        .trimId(rs.getObject("trim_id", Integer.class))
+                        .build());
+            }
+        }, firstId, lastId);
+
+        jdbcTemplate.query(PRIMARY_IMAGE_BATCH_SQL, rs -> {
+            ListingDocument document = byId.get(rs.getLong("listing_id"));
+            if (document != null) {
+                document.setPrimaryImageUrl(rs.getString("image_url"));
+            }
+        }, firstId, lastId);
+
+        return documents;
+    }
+
+    private ListingDocument mapDocument(ResultSet rs) throws SQLException {
+        return ListingDocument.builder()
+                .id(rs.getLong("id"))
+                .title(rs.getString("title"))
+                .description(rs.getString("description"))
+                .oemPartNumber(rs.getString("oem_part_number"))
+                .aftermarketPartNumber(rs.getString("aftermarket_part_number"))
+                .sellerId(rs.getLong("seller_id"))
+                .sellerBusinessName(rs.getString("business_name"))
+                .categoryId(rs.getLong("category_id"))
+                .categoryName(rs.getString("category_name"))
+                .brandId(rs.getObject("brand_id", Long.class))
+                .brandName(rs.getString("brand_name"))
+                .condition(Condition.valueOf(rs.getString("condition")))
+                .price(rs.getBigDecimal("price").doubleValue())
+                .quantity(rs.getInt("quantity"))
+                .averageRating(rs.getBigDecimal("average_rating") != null
+                        ? rs.getBigDecimal("average_rating").doubleValue() : null)
+                .totalRatings(rs.getObject("total_ratings", Integer.class))
+                .active(rs.getBoolean("active"))
+                .featured(rs.getBoolean("is_featured"))
+                .createdAt(rs.getObject("created_at", LocalDateTime.class))
+                .updatedAt(rs.getObject("updated_at", LocalDateTime.class))
+                .compatibilityMappings(new ArrayList<>())
+                .build();
+    }
+
+    /**
+     * Splits [min(id), max(id)] into more ranges than workers so a sparse range doesn't leave
+     * the others idle. Each range is (fromExclusive, toInclusive].
+     */
+    private List<long[]> splitIdRange() {
+        Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM listings");
+        if (bounds.get("min_id") == null) {
+            return Collections.emptyList();
+        }
+
+        long minId = ((Number) bounds.get("min_id")).longValue();
+        long maxId = ((Number) bounds.get("max_id")).longValue();
+        int rangeCount = Math.max(1, parallelism * 4);
+        long step = Math.max(1, (maxId - minId + rangeCount) / rangeCount);
+
+        List<long[]> ranges = new ArrayList<>();
+        for (long from = minId - 1; from < maxId; from += step) {
+            ranges.add(new long[]{from, Math.min(from + step, maxId)});
+        }
+        return ranges;
+    }
+
+    private void drainTouched(ReindexJob job, IndexCoordinates target) {
+        while (!job.touchedIds.isEmpty()) {
+            for (Long listingId : List.copyOf(job.touchedIds)) {
+                job.touchedIds.remove(listingId);
+                listingSearchService.syncListing(listingId, target);
+            }
+        }
+    }
+
+    /**
+     * Points the alias at the new index in a single atomic request and returns the indexes it
+     * previously covered. A pre-alias concrete {@code listings} index is dropped in the same request.
+     */
+    private List<String> swapAlias(String newIndex) throws IOException {
+        List<String> previous = new ArrayList<>(resolveAliasTargets());
+        List<Action> actions = new ArrayList<>();
+        for (String oldIndex : previous) {
+            actions.add(Action.of(a -> a.remove(remove -> remove.index(oldIndex).alias(ALIAS))));
+        }
+        if (previous.isEmpty() && concreteIndexExists()) {
+            actions.add(Action.of(a -> a.removeIndex(remove -> remove.index(ALIAS))));
+        }
+        actions.add(Action.of(a -> a.add(add -> add.index(newIndex).alias(ALIAS))));
+
+        elasticsearchClient.indices().updateAliases(u -> u.actions(actions));
+        return previous;
+    }
+
+    private Set<String> resolveAliasTargets() throws IOException {
+        if (!elasticsearchClient.indices().existsAlias(e -> e.name(ALIAS)).value()) {
+            return Collections.emptySet();
+        }
+        return elasticsearchClient.indices().getAlias(g -> g.name(ALIAS)).result().keySet();
+    }
+
+    private boolean concreteIndexExists() throws IOException {
+        return resolveAliasTargets().isEmpty()
+                && elasticsearchClient.indices().exists(e -> e.index(ALIAS)).value();
+    }
+
+    private void createIndex(String indexName, Map<String, Object> settings) {
+        IndexOperations indexOps = elasticsearchOperations.indexOps(IndexCoordinates.of(indexName));
+        indexOps.create(settings, indexOps.createMapping(ListingDocument.class));
+    }
+
+    private static String newIndexName() {
+        return ALIAS + "_v" + LocalDateTime.now().format(VERSION_FORMAT);
+    }
+
+    private static class ReindexJob {
+        private final String indexName;
+        private final long total;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong indexed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final Set<Long> touchedIds = ConcurrentHashMap.newKeySet();
+        private volatile boolean tracking = true;
+        private volatile boolean cancelled;
+        private volatile String state = "RUNNING";
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        ReindexJob(String indexName, long total) {
+            this.indexName = indexName;
+            this.total = total;
+        }
+
+        void finish(String finalState, String errorMessage) {
+            this.error = errorMessage;
+            this.finishedAt = LocalDateTime.now();
+            this.state = finalState;
+        }
+
+        double docsPerSecond() {
+            LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+            long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+            return indexed.get() * 1000.0 / millis;
+        }
+
+        ReindexStatusDto toDto() {
+            return ReindexStatusDto.builder()
+                    .indexName(indexName)
+                    .state(state)
+                    .totalListings(total)
+                    .indexedListings(indexed.get())
+                    .failedListings(failed.get())
+                    .docsPerSecond(docsPerSecond())
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+}
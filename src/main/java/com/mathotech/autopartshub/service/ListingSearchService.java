@@ -0,0 +1,262 @@
+package com.mathotech.autopartshub.service;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.json.JsonData;
+import com.mathotech.autopartshub.dto.listing.ListingDto;
+import com.mathotech.autopartshub.dto.listing.ListingImageDto;
+import com.mathotech.autopartshub.dto.listing.ListingSearchCriteria;
+import com.mathotech.autopartshub.event.ListingChangedEvent;
+import com.mathotech.autopartshub.model.Listing;
+import com.mathotech.autopartshub.model.ListingDocument;
+import com.mathotech.autopartshub.model.ListingImage;
+import com.mathotech.autopartshub.repository.ListingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ListingSearchService {
+
+    private static final List<String> SEARCH_FIELDS = List.of(
+            "title^3", "oemPartNumber^4", "aftermarketPartNumber^4",
+            "brandName^2", "categoryName^2", "description");
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ListingRepository listingRepository;
+    private final VehicleCatalogService vehicleCatalogService;
+    private final CategoryTree categoryTree;
+
+    /**
+     * Runs after the listing transaction commits so the index never sees rolled-back writes.
+     * Failures are logged rather than propagated; a full reindex repairs any drift.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        try {
+            if (event.getType() == ListingChangedEvent.ChangeType.DELETED) {
+                elasticsearchOperations.delete(String.valueOf(event.getListingId()), ListingDocument.class);
+                return;
+            }
+
+            syncListing(event.getListingId(), elasticsearchOperations.getIndexCoordinatesFor(ListingDocument.class));
+        } catch (Exception ex) {
+            log.warn("Failed to sync listing {} to search index: {}", event.getListingId(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Writes the current database state of a listing to the given index, or removes it if the
+     * listing no longer exists.
+     */
+    @Transactional(readOnly = true)
+    public void syncListing(Long listingId, IndexCoordinates index) {
+        listingRepository.findById(listingId).ifPresentOrElse(
+                listing -> elasticsearchOperations.save(toDocument(listing), index),
+                () -> elasticsearchOperations.delete(String.valueOf(listingId), index));
+    }
+
+    public Page<ListingDto> search(ListingSearchCriteria criteria, Pageable pageable) {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(buildQuery(criteria))
+                .withPageable(pageable)
+                .withTrackTotalHits(true)
+                .build();
+
+        SearchHits<ListingDocument> hits = elasticsearchOperations.search(query, ListingDocument.class);
+
+        List<ListingDto> content = hits.getSearchHits().stream()
+                .map(hit -> mapToDto(hit.getContent()))
+                .collect(Collectors.toList());
+        fillStock(content);
+
+        return new PageImpl<>(content, pageable, hits.getTotalHits());
+    }
+
+    /**
+     * Orders change stock without reindexing the listing, so the indexed quantity is only as fresh
+     * as the last full edit. Each page reads the current quantities in one query instead.
+     */
+    private void fillStock(List<ListingDto> listings) {
+        if (listings.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> quantities = listingRepository.findStockByIdIn(
+                        listings.stream().map(ListingDto::getId).collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(ListingRepository.ListingStock::getId,
+                        ListingRepository.ListingStock::getQuantity));
+        for (ListingDto listing : listings) {
+            // A listing deleted since it was indexed has nothing left to sell
+            listing.setQuantity(quantities.getOrDefault(listing.getId(), 0));
+        }
+    }
+
+    private Query buildQuery(ListingSearchCriteria criteria) {
+        BoolQuery.Builder bool = new BoolQuery.Builder();
+        bool.filter(f -> f.term(t -> t.field("active").value(true)));
+
+        if (StringUtils.hasText(criteria.getQuery())) {
+            String text = criteria.getQuery().trim();
+            bool.must(m -> m.multiMatch(mm -> mm.query(text).fields(SEARCH_FIELDS)));
+            // Exact part-number hits should outrank fuzzy title matches
+            bool.should(s -> s.term(t -> t.field("oemPartNumber.raw").value(text).boost(5.0f)));
+            bool.should(s -> s.term(t -> t.field("aftermarketPartNumber.raw").value(text).boost(5.0f)));
+        }
+        if (criteria.getCategoryId() != null) {
+            List<FieldValue> categoryIds = categoryTree.subtree(criteria.getCategoryId()).stream()
+                    .map(FieldValue::of)
+                    .collect(Collectors.toList());
+            bool.filter(f -> f.terms(t -> t.field("categoryId").terms(v -> v.value(categoryIds))));
+        }
+        if (criteria.getBrandId() != null) {
+            bool.filter(f -> f.term(t -> t.field("brandId").value(criteria.getBrandId())));
+        }
+        if (criteria.getCondition() != null) {
+            bool.filter(f -> f.term(t -> t.field("condition").value(criteria.getCondition().name())));
+        }
+        if (criteria.getMinPrice() != null || criteria.getMaxPrice() != null) {
+            bool.filter(f -> f.range(r -> {
+                r.field("price");
+                if (criteria.getMinPrice() != null) {
+                    r.gte(JsonData.of(criteria.getMinPrice()));
+                }
+                if (criteria.getMaxPrice() != null) {
+                    r.lte(JsonData.of(criteria.getMaxPrice()));
+                }
+                return r;
+            }));
+        }
+        if (StringUtils.hasText(criteria.getMake()) && StringUtils.hasText(criteria.getModel())
+                && criteria.getYear() != null) {
+            Integer modelId = vehicleCatalogService.findModelId(criteria.getMake(), criteria.getModel()).orElse(null);
+            Integer engineId = modelId != null && StringUtils.hasText(criteria.getEngine())
+                    ? vehicleCatalogService.findEngineId(modelId, criteria.getEngine()).orElse(null)
+                    : null;
+            if (modelId == null || (StringUtils.hasText(criteria.getEngine()) && engineId == null)) {
+                // A vehicle missing from the catalog can't match any listing
+                bool.filter(f -> f.matchNone(m -> m));
+            } else {
+                bool.filter(f -> f.nested(n -> n
+                        .path("compatibilityMappings")
+                        .query(q -> q.bool(fitment -> {
+                            fitment.filter(c -> c.term(t -> t.field("compatibilityMappings.modelId")
+                                    .value(modelId)));
+                            fitment.filter(c -> c.range(r -> r.field("compatibilityMappings.yearStart")
+                                    .lte(JsonData.of(criteria.getYear()))));
+                            fitment.filter(c -> c.range(r -> r.field("compatibilityMappings.yearEnd")
+                                    .gte(JsonData.of(criteria.getYear()))));
+                            if (engineId != null) {
+                                fitment.filter(c -> c.term(t -> t.field("compatibilityMappings.engineId")
+                                        .value(engineId)));
+                            }
+                            return fitment;
+                        }))));
+            }
+        }
+
+        return Query.of(q -> q.bool(bool.build()));
+    }
+
+    ListingDocument toDocument(Listing listing) {
+        String primaryImageUrl = listing.getImages() == null ? null : listing.getImages().stream()
+                .filter(ListingImage::isPrimary)
+                .map(ListingImage::getImageUrl)
+                .findFirst()
+                .orElse(null);
+
+        List<ListingDocument.Fitment> fitments = listing.getCompatibilityMappings() == null
+                ? Collections.emptyList()
+                : listing.getCompatibilityMappings().stream()
+                        .map(mapping -> ListingDocument.Fitment.builder()
+                                .makeId(mapping.getMake().getId())
+                                .modelId(mapping.getModel().getId())
+                                .yearStart(mapping.getYearStart())
+                                .yearEnd(mapping.getYearEnd())
+                                .engineId(mapping.getEngine() != null ? mapping.getEngine().getId() : null)
+                                .trimId(mapping.getTrim() != null ? mapping.getTrim().getId() : null)
+                                .build())
+                        .collect(Collectors.toList());
+
+        return ListingDocument.builder()
+                .id(listing.getId())
+                .title(listing.getTitle())
+                .description(listing.getDescription())
+                .oemPartNumber(listing.getOemPartNumber())
+                .aftermarketPartNumber(listing.getAftermarketPartNumber())
+                .sellerId(listing.getSeller().getId())
+                .sellerBusinessName(listing.getSeller().getBusinessName())
+                .categoryId(listing.getCategory().getId())
+                .categoryName(listing.getCategory().getName())
+                .brandId(listing.getBrand() != null ? listing.getBrand().getId() : null)
+                .brandName(listing.getBrand() != null ? listing.getBrand().getName() : null)
+                .condition(listing.getCondition())
+                .price(listing.getPrice() != null ? listing.getPrice().doubleValue() : null)
+                .quantity(listing.getQuantity())
+                .averageRating(listing.getAverageRating() != null ? listing.getAverageRating().doubleValue() : null)
+                .totalRatings(listing.getTotalRatings())
+                .active(listing.isActive())
+                .featured(listing.isFeatured())
+                .primaryImageUrl(primaryImageUrl)
+                .compatibilityMappings(fitments)
+                .createdAt(listing.getCreatedAt())
+                .updatedAt(listing.getUpdatedAt())
+                .build();
+    }
+
+    private ListingDto mapToDto(ListingDocument document) {
+        ListingDto dto = ListingDto.builder()
+                .id(document.getId())
+                .title(document.getTitle())
+                .description(document.getDescription())
+                .sellerId(document.getSellerId())
+                .sellerBusinessName(document.getSellerBusinessName())
+                .categoryId(document.getCategoryId())
+                .categoryName(document.getCategoryName())
+                .brandId(document.getBrandId())
+                .brandName(document.getBrandName())
+                .condition(document.getCondition())
+                .price(document.getPrice() != null ? BigDecimal.valueOf(document.getPrice()) : null)
+                .oemPartNumber(document.getOemPartNumber())
+                .aftermarketPartNumber(document.getAftermarketPartNumber())
+                .quantity(document.getQuantity())
+                .averageRating(document.getAverageRating() != null
+                        ? BigDecimal.valueOf(document.getAverageRating()) : null)
+                .totalRatings(document.getTotalRatings())
+                .active(document.isActive())
+                .featured(document.isFeatured())
+                .createdAt(document.getCreatedAt())
+                .updatedAt(document.getUpdatedAt())
+                .build();
+
+        if (document.getPrimaryImageUrl() != null) {
+            dto.getImages().add(ListingImageDto.builder()
+                    .imageUrl(document.getPrimaryImageUrl())
+                    .primary(true)
+                    .build());
+        }
+
+        return dto;
+    }
+}
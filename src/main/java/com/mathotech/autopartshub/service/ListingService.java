@@ -0,0 +1,704 @@
+package com.mathotech.autopartshub.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mathotech.autopartshub.cache.TwoTierCache;
+import com.mathotech.autopartshub.dto.CountMode;
+import com.mathotech.autopartshub.dto.CursorPage;
+import com.mathotech.autopartshub.dto.VinDecodeDto;
+import com.mathotech.autopartshub.dto.listing.CompatibilityMappingDto;
+import com.mathotech.autopartshub.dto.listing.FacetedListingsDto;
+import com.mathotech.autopartshub.dto.listing.ListingBrowseFilter;
+import com.mathotech.autopartshub.dto.listing.ListingDto;
+import com.mathotech.autopartshub.dto.listing.ListingImageDto;
+import com.mathotech.autopartshub.dto.listing.ListingJson;
+import com.mathotech.autopartshub.dto.listing.ListingSummaryDto;
+import com.mathotech.autopartshub.event.ListingChangedEvent;
+import com.mathotech.autopartshub.event.ListingChangedEvent.ChangeType;
+import com.mathotech.autopartshub.event.ListingStockChangedEvent;
+import com.mathotech.autopartshub.event.ReferenceDataChangedEvent;
+import com.mathotech.autopartshub.model.*;
+import com.mathotech.autopartshub.repository.BrandRepository;
+import com.mathotech.autopartshub.repository.CategoryRepository;
+import com.mathotech.autopartshub.repository.ListingRepository;
+import com.mathotech.autopartshub.repository.ListingSortKey;
+import com.mathotech.autopartshub.repository.SellerRepository;
+import com.mathotech.autopartshub.service.ListingCounterService.CountedState;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+@Service
+@RequiredArgsConstructor
+public class ListingService {
+
+    static final String LISTINGS_CACHE = "listings";
+    static final String LISTING_JSON_CACHE = "listing-json";
+    static final String LISTING_SUMMARY_CACHE = "listing-summaries";
+
+    private final ListingRepository listingRepository;
+    private final SellerRepository sellerRepository;
+    private final CategoryRepository categoryRepository;
+    private final BrandRepository brandRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PageCountService pageCountService;
+    private final VehicleFitmentIndex vehicleFitmentIndex;
+    private final VehicleCatalogService vehicleCatalogService;
+    private final VinDecoderService vinDecoderService;
+    private final ListingFacetIndex listingFacetIndex;
+    private final CategoryTree categoryTree;
+    private final ListingCounterService listingCounterService;
+    private final ObjectMapper objectMapper;
+    private final ReferenceDataService referenceDataService;
+    private final CacheManager cacheManager;
+    private final InventoryService inventoryService;
+
+    private final ExecutorService stockEvictor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "listing-stock-evict");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${app.pagination.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${app.fitment-index.max-ids-per-query:10000}")
+    private int maxFitmentIds;
+
+    @Transactional(readOnly = true)
+    public Slice<ListingSummaryDto> getAllListings(Pageable pageable, CountMode countMode) {
+        Slice<ListingSummaryDto> listings = listingRepository.findSummariesByActiveTrue(pageable);
+        return pageCountService.toResponse(countMode, pageable, listings, "listings:active",
+                listingRepository::countByActiveTrue);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<ListingSummaryDto> getListingsByCategory(Long categoryId, Pageable pageable, CountMode countMode) {
+        // Includes listings filed under any subcategory
+        List<Long> categoryIds = categoryTree.subtree(categoryId);
+        if (categoryIds.size() > 1) {
+            // The (category_id, key, id) indexes give each category's listings in order, but not
+            // several categories merged, so Postgres would sort the whole subtree for every page
+            ListingBrowseFilter filter = ListingBrowseFilter.builder().categoryIds(categoryIds).build();
+            Optional<ListingFacetIndex.FacetSearch> indexed = searchIndex(filter, pageable, false);
+            if (indexed.isPresent()) {
+                return toSlice(indexed.get(), pageable, countMode);
+            }
+        }
+        Slice<ListingSummaryDto> listings = listingRepository.findSummariesByCategoryIdInAndActiveTrue(categoryIds, pageable);
+        return pageCountService.toResponse(countMode, pageable, listings, "listings:category:" + categoryId,
+                () -> listingRepository.countByCategoryIdInAndActiveTrue(categoryIds));
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<ListingSummaryDto> getListingsByBrand(Long brandId, Pageable pageable, CountMode countMode) {
+        Slice<ListingSummaryDto> listings = listingRepository.findSummariesByBrandIdAndActiveTrue(brandId, pageable);
+        return pageCountService.toResponse(countMode, pageable, listings, "listings:brand:" + brandId,
+                () -> listingRepository.countByBrandIdAndActiveTrue(brandId));
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<ListingSummaryDto> getListingsBySeller(Long sellerId, Pageable pageable, CountMode countMode) {
+        Slice<ListingSummaryDto> listings = listingRepository.findSummariesBySellerId(sellerId, pageable);
+        return pageCountService.toResponse(countMode, pageable, listings, "listings:seller:" + sellerId,
+                () -> listingRepository.countBySellerId(sellerId));
+    }
+
+    /**
+     * Served from the facet index when it is loaded and the sort is one it holds (createdAt, price,
+     * averageRating): the total is exact at no extra cost and facet counts come from the same
+     * pass. Otherwise falls back to SQL, without facet counts.
+     */
+    @Transactional(readOnly = true)
+    public FacetedListingsDto getListingsByFilters(ListingBrowseFilter filter, Pageable pageable,
+                                                   CountMode countMode, boolean withFacets) {
+        if (!expandCategories(filter)) {
+            return FacetedListingsDto.builder()
+                    .listings(new SliceImpl<>(List.of(), pageable, false))
+                    .build();
+        }
+        Optional<ListingFacetIndex.FacetSearch> indexed = searchIndex(filter, pageable, withFacets);
+        if (indexed.isPresent()) {
+            return FacetedListingsDto.builder()
+                    .listings(toSlice(indexed.get(), pageable, countMode))
+                    .facets(indexed.get().getFacets())
+                    .build();
+        }
+
+        Slice<ListingSummaryDto> listings = listingRepository.findByFilter(filter, pageable);
+        Slice<ListingSummaryDto> page = pageCountService.toResponse(countMode, pageable, listings,
+                "listings:filter:" + filter, () -> listingRepository.countByFilter(filter));
+        return FacetedListingsDto.builder()
+                .listings(page)
+                .build();
+    }
+
+    /**
+     * Resolves the names against the vehicle catalog, then the fitting listing IDs from the
+     * in-memory fitment index, which also gives an exact total for free. Falls back to the SQL join
+     * while the index is loading or when the match is too broad to pass as an IN list.
+     */
+    @Transactional(readOnly = true)
+    public Slice<ListingSummaryDto> getListingsByVehicleCompatibility(String make, String model, Integer year,
+                                                                      String engine, Pageable pageable,
+                                                                      CountMode countMode) {
+        Integer modelId = vehicleCatalogService.findModelId(make, model).orElse(null);
+        Integer engineId = modelId != null && StringUtils.hasText(engine)
+                ? vehicleCatalogService.findEngineId(modelId, engine).orElse(null)
+                : null;
+        if (modelId == null || (StringUtils.hasText(engine) && engineId == null)) {
+            // Not in the catalog, so nothing can fit
+            return pageCountService.toResponse(countMode == CountMode.NONE ? CountMode.NONE : CountMode.EXACT,
+                    pageable, new SliceImpl<ListingSummaryDto>(List.of(), pageable, false), null, () -> 0L);
+        }
+
+        long[] ids = vehicleFitmentIndex.findListingIds(modelId, year, engineId).orElse(null);
+        if (ids != null && ids.length <= maxFitmentIds) {
+            List<Long> listingIds = LongStream.of(ids).boxed().collect(Collectors.toList());
+            Slice<ListingSummaryDto> listings = listingIds.isEmpty()
+                    ? new SliceImpl<>(List.of(), pageable, false)
+                    : listingRepository.findSummariesByIdInAndActiveTrue(listingIds, pageable);
+            CountMode mode = countMode == CountMode.NONE ? CountMode.NONE : CountMode.EXACT;
+            return pageCountService.toResponse(mode, pageable, listings, null, () -> listingIds.size());
+        }
+
+        Slice<ListingSummaryDto> listings = listingRepository.findSummariesByVehicleCompatibility(
+                modelId, year, engineId, pageable);
+        String countKey = "listings:vehicle:" + modelId + ":" + year + ":" + engineId;
+        return pageCountService.toResponse(countMode, pageable, listings, countKey,
+                () -> listingRepository.countByVehicleCompatibility(modelId, year, engineId));
+    }
+
+    /**
+     * Decodes the VIN locally and runs the vehicle compatibility lookup on the result. A decoded
+     * engine the catalog doesn't know is dropped rather than ruling every listing out.
+     */
+    @Transactional(readOnly = true)
+    public Slice<ListingSummaryDto> getListingsByVin(String vin, Pageable pageable, CountMode countMode) {
+        VinDecodeDto vehicle = vinDecoderService.decode(vin);
+        if (vehicle.getModel() == null) {
+            throw new EntityNotFoundException("Could not determine the vehicle model for VIN " + vehicle.getVin());
+        }
+        String engine = vehicle.getEngine() != null && vehicleCatalogService
+                .findModelId(vehicle.getMake(), vehicle.getModel())
+                .flatMap(modelId -> vehicleCatalogService.findEngineId(modelId, vehicle.getEngine()))
+                .isPresent() ? vehicle.getEngine() : null;
+        return getListingsByVehicleCompatibility(vehicle.getMake(), vehicle.getModel(), vehicle.getYear(), engine,
+                pageable, countMode);
+    }
+
+    /**
+     * Active, in-stock listings among the given IDs, kept in the order given.
+     */
+    @Transactional(readOnly = true)
+    public List<ListingSummaryDto> getInStockListings(List<Long> ids) {
+        return findInOrder(ids).stream()
+                .filter(listing -> listing.isActive() && listing.getQuantity() > 0)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Keyset alternative to the offset-paged browse methods: cost stays flat however deep the
+     * client scrolls. An empty cursor starts from the beginning.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ListingSummaryDto> getListingsAfterCursor(ListingBrowseFilter filter, String sortBy, String sortDir,
+                                                         String cursor, int size) {
+        ListingSortKey sortKey = ListingSortKey.fromProperty(sortBy)
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Cursor pagination only supports sortBy createdAt, price or averageRating"));
+        Sort.Direction direction = sortDir.equalsIgnoreCase("ASC") ? Sort.Direction.ASC : Sort.Direction.DESC;
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+
+        Object lastValue = null;
+        Long lastId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            if (!parts[0].equals(sortKey.name()) || !parts[1].equals(direction.name())) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort order");
+            }
+            try {
+                lastValue = sortKey.parse(parts[2]);
+                lastId = Long.parseLong(parts[3]);
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException("Invalid cursor", ex);
+            }
+        }
+
+        if (!expandCategories(filter)) {
+            return CursorPage.<ListingSummaryDto>builder().size(pageSize).hasNext(false).build();
+        }
+        if (filter.getMake() != null && filter.getModel() != null && filter.getYear() != null) {
+            Integer modelId = vehicleCatalogService.findModelId(filter.getMake(), filter.getModel()).orElse(null);
+            Integer engineId = modelId != null && StringUtils.hasText(filter.getEngine())
+                    ? vehicleCatalogService.findEngineId(modelId, filter.getEngine()).orElse(null)
+                    : null;
+            if (modelId == null || (StringUtils.hasText(filter.getEngine()) && engineId == null)) {
+                return CursorPage.<ListingSummaryDto>builder().size(pageSize).hasNext(false).build();
+            }
+            filter.setModelId(modelId);
+            filter.setEngineId(engineId);
+        }
+
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        List<ListingSummaryDto> listings = listingRepository.findPageAfter(filter, sortKey, direction, lastValue, lastId, pageSize + 1);
+        boolean hasNext = listings.size() > pageSize;
+        if (hasNext) {
+            listings = listings.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            ListingSummaryDto last = listings.get(listings.size() - 1);
+            nextCursor = encodeCursor(sortKey, direction, sortKey.format(sortKey.extract(last)), last.getId());
+        }
+
+        return CursorPage.<ListingSummaryDto>builder()
+                .content(listings)
+                .size(pageSize)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = LISTINGS_CACHE, key = "#id", sync = true)
+    public ListingDto getListingById(Long id) {
+        Listing listing = listingRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Listing not found with id: " + id));
+
+        return mapToDto(listing);
+    }
+
+    /**
+     * The listing detail response serialized once and cached with its ETag, so a hit skips both
+     * loading the entity graph and running Jackson. The ETag is built from the versions of what
+     * the response shows (see {@link #getListingEtag}), not from the bytes.
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = LISTING_JSON_CACHE, key = "#id", sync = true)
+    public ListingJson getListingJson(Long id) {
+        long referenceVersion = referenceDataService.getVersion();
+        Listing listing = listingRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Listing not found with id: " + id));
+
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(mapToDto(listing));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Failed to serialize listing " + id, ex);
+        }
+        return ListingJson.builder()
+                .body(body)
+                .etag(listingEtag(id, listing.getUpdatedAt(), listing.getSeller().getUpdatedAt(), referenceVersion))
+                .build();
+    }
+
+    /**
+     * The ETag {@link #getListingJson} would return, for answering If-None-Match without building
+     * the body: taken from the cached response when there is one, otherwise from the listing and
+     * seller timestamps alone.
+     */
+    @Transactional(readOnly = true)
+    public String getListingEtag(Long id) {
+        Cache.ValueWrapper cached = cacheManager.getCache(LISTING_JSON_CACHE).get(id);
+        if (cached != null && cached.get() instanceof ListingJson json) {
+            return json.getEtag();
+        }
+        long referenceVersion = referenceDataService.getVersion();
+        ListingRepository.ListingVersion version = listingRepository.findVersionById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Listing not found with id: " + id));
+        return listingEtag(id, version.getUpdatedAt(), version.getSellerUpdatedAt(), referenceVersion);
+    }
+
+    // Category and brand names in the response come from reference data, hence its version
+    private static String listingEtag(Long id, LocalDateTime updatedAt, LocalDateTime sellerUpdatedAt,
+                                      long referenceVersion) {
+        return ETags.of(id, updatedAt, sellerUpdatedAt, "r" + referenceVersion);
+    }
+
+    /**
+     * Summaries of the given listings, inactive ones included, in the order asked for; unknown IDs
+     * are left out. Summaries this node has in memory are used as is and the rest are read with
+     * one query, then kept in memory for the next batch.
+     */
+    @Transactional(readOnly = true)
+    public List<ListingSummaryDto> getListingSummaries(List<Long> ids) {
+        List<Long> distinctIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        Cache cache = cacheManager.getCache(LISTING_SUMMARY_CACHE);
+        TwoTierCache twoTier = cache instanceof TwoTierCache twoTierCache ? twoTierCache : null;
+
+        Map<Long, ListingSummaryDto> summaries = new HashMap<>();
+        if (twoTier != null) {
+            twoTier.getAllLocal(distinctIds).forEach((id, summary) -> summaries.put(id, (ListingSummaryDto) summary));
+        }
+        List<Long> missing = distinctIds.stream()
+                .filter(id -> !summaries.containsKey(id))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            for (ListingSummaryDto summary : listingRepository.findSummariesByIdIn(missing)) {
+                if (summaries.putIfAbsent(summary.getId(), summary) == null && twoTier != null) {
+                    twoTier.putLocal(summary.getId(), summary);
+                }
+            }
+        }
+
+        return distinctIds.stream()
+                .map(summaries::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = LISTINGS_CACHE, key = "'featured'", sync = true)
+    public List<ListingDto> getFeaturedListings() {
+        return listingRepository.findByFeaturedTrueAndActiveTrue().stream()
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Drops cached copies once a listing change commits; evicting inside the transaction would
+     * let a concurrent read cache the old row again.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Caching(evict = {
+            @CacheEvict(cacheNames = LISTINGS_CACHE, key = "#event.listingId"),
+            @CacheEvict(cacheNames = LISTINGS_CACHE, key = "'featured'"),
+            @CacheEvict(cacheNames = LISTING_JSON_CACHE, key = "#event.listingId"),
+            @CacheEvict(cacheNames = LISTING_SUMMARY_CACHE, key = "#event.listingId")
+    })
+    public void evictCachedListing(ListingChangedEvent event) {
+    }
+
+    /**
+     * Drops cached copies of listings whose stock changed. Runs after checkout commits, so the
+     * Redis evictions and announcements happen on a background thread rather than in the
+     * checkout; a read in between can briefly see the previous quantity.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void evictCachedStock(ListingStockChangedEvent event) {
+        List<Long> listingIds = List.copyOf(event.getListingIds());
+        stockEvictor.execute(() -> {
+            evictAll(LISTINGS_CACHE, listingIds);
+            evictAll(LISTINGS_CACHE, List.of("featured"));
+            evictAll(LISTING_JSON_CACHE, listingIds);
+            evictAll(LISTING_SUMMARY_CACHE, listingIds);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stockEvictor.shutdown();
+    }
+
+    /**
+     * For bulk changes that don't publish an event per listing.
+     */
+    @CacheEvict(cacheNames = {LISTINGS_CACHE, LISTING_JSON_CACHE, LISTING_SUMMARY_CACHE}, allEntries = true)
+    public void evictAllCachedListings() {
+    }
+
+    /**
+     * Cached listings carry category and brand names, and their ETags the reference data version.
+     */
+    @EventListener
+    @CacheEvict(cacheNames = {LISTINGS_CACHE, LISTING_JSON_CACHE}, allEntries = true)
+    public void evictCachedListings(ReferenceDataChangedEvent event) {
+    }
+
+    @Transactional
+    public ListingDto createListing(ListingDto listingDto, Long sellerId) {
+        Seller seller = sellerRepository.findById(sellerId)
+                .orElseThrow(() -> new EntityNotFoundException("Seller not found with id: " + sellerId));
+
+        Listing listing = new Listing();
+        listing.setSeller(seller);
+        applyDto(listing, listingDto);
+
+        Listing savedListing = listingRepository.save(listing);
+        listingCounterService.recordChange(null, CountedState.of(savedListing));
+        eventPublisher.publishEvent(new ListingChangedEvent(savedListing.getId(), ChangeType.CREATED));
+
+        return mapToDto(savedListing);
+    }
+
+    @Transactional
+    public ListingDto updateListing(Long id, ListingDto listingDto, Long sellerId) {
+        Listing listing = findOwnedListing(id, sellerId);
+        CountedState before = CountedState.of(listing);
+        int loadedQuantity = listing.getQuantity();
+
+        applyDto(listing, listingDto);
+        // The quantity column isn't written by the save
+        inventoryService.adjust(id, listing.getQuantity() - loadedQuantity);
+        // Replacing images or fitments alone doesn't dirty the listing row, and the ETag relies on it
+        listing.setUpdatedAt(LocalDateTime.now());
+
+        Listing updatedListing = listingRepository.save(listing);
+        listingCounterService.recordChange(before, CountedState.of(updatedListing));
+        eventPublisher.publishEvent(new ListingChangedEvent(updatedListing.getId(), ChangeType.UPDATED));
+
+        return mapToDto(updatedListing);
+    }
+
+    @Transactional
+    public void deleteListing(Long id, Long sellerId) {
+        Listing listing = findOwnedListing(id, sellerId);
+
+        listingRepository.delete(listing);
+        listingCounterService.recordChange(CountedState.of(listing), null);
+        eventPublisher.publishEvent(new ListingChangedEvent(id, ChangeType.DELETED));
+    }
+
+    @Transactional
+    public void toggleListingActive(Long id, Long sellerId) {
+        Listing listing = findOwnedListing(id, sellerId);
+        CountedState before = CountedState.of(listing);
+
+        listing.setActive(!listing.isActive());
+        listingRepository.save(listing);
+        listingCounterService.recordChange(before, CountedState.of(listing));
+        eventPublisher.publishEvent(new ListingChangedEvent(id, ChangeType.UPDATED));
+    }
+
+    @Transactional
+    public void toggleListingFeatured(Long id) {
+        Listing listing = listingRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Listing not found with id: " + id));
+
+        listing.setFeatured(!listing.isFeatured());
+        listingRepository.save(listing);
+        eventPublisher.publishEvent(new ListingChangedEvent(id, ChangeType.UPDATED));
+    }
+
+    private Listing findOwnedListing(Long id, Long sellerId) {
+        Listing listing = listingRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Listing not found with id: " + id));
+
+        if (!listing.getSeller().getId().equals(sellerId)) {
+            throw new AccessDeniedException("You can only modify your own listings");
+        }
+
+        return listing;
+    }
+
+    private String encodeCursor(ListingSortKey sortKey, Sort.Direction direction, String value, Long id) {
+        String raw = sortKey.name() + "|" + direction.name() + "|" + value + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return parts;
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor", ex);
+        }
+    }
+
+    private void applyDto(Listing listing, ListingDto listingDto) {
+        Category category = categoryRepository.findById(listingDto.getCategoryId())
+                .orElseThrow(() -> new EntityNotFoundException("Category not found with id: " + listingDto.getCategoryId()));
+
+        Brand brand = null;
+        if (listingDto.getBrandId() != null) {
+            brand = brandRepository.findById(listingDto.getBrandId())
+                    .orElseThrow(() -> new EntityNotFoundException("Brand not found with id: " + listingDto.getBrandId()));
+        }
+
+        listing.setTitle(listingDto.getTitle());
+        listing.setDescription(listingDto.getDescription());
+        listing.setCategory(category);
+        listing.setBrand(brand);
+        listing.setCondition(listingDto.getCondition());
+        listing.setPrice(listingDto.getPrice());
+        listing.setOemPartNumber(listingDto.getOemPartNumber());
+        listing.setAftermarketPartNumber(listingDto.getAftermarketPartNumber());
+        listing.setQuantity(listingDto.getQuantity());
+        listing.setWarrantyInformation(listingDto.getWarrantyInformation());
+
+        // Replace compatibility mappings; orphanRemoval deletes the old rows
+        listing.getCompatibilityMappings().clear();
+        if (listingDto.getCompatibilityMappings() != null) {
+            for (CompatibilityMappingDto mappingDto : listingDto.getCompatibilityMappings()) {
+                CompatibilityMapping mapping = new CompatibilityMapping();
+                mapping.setListing(listing);
+                vehicleCatalogService.assignVehicle(mapping, mappingDto.getMake(), mappingDto.getModel(),
+                        mappingDto.getEngine(), mappingDto.getTrim());
+                mapping.setYearStart(mappingDto.getYearStart());
+                mapping.setYearEnd(mappingDto.getYearEnd());
+                listing.getCompatibilityMappings().add(mapping);
+            }
+        }
+    }
+
+    /**
+     * Widens the filter's categories to their subtrees, so "Engine" also matches "Engine > Pistons".
+     * Returns false when the single category and the category list share no subtree, so nothing
+     * can match.
+     */
+    private boolean expandCategories(ListingBrowseFilter filter) {
+        Set<Long> expanded = null;
+        if (!CollectionUtils.isEmpty(filter.getCategoryIds())) {
+            expanded = new LinkedHashSet<>();
+            for (Long categoryId : filter.getCategoryIds()) {
+                expanded.addAll(categoryTree.subtree(categoryId));
+            }
+        }
+        if (filter.getCategoryId() != null) {
+            List<Long> subtree = categoryTree.subtree(filter.getCategoryId());
+            if (expanded == null) {
+                expanded = new LinkedHashSet<>(subtree);
+            } else {
+                expanded.retainAll(subtree);
+            }
+            filter.setCategoryId(null);
+        }
+        if (expanded == null) {
+            return true;
+        }
+        filter.setCategoryIds(new ArrayList<>(expanded));
+        return !expanded.isEmpty();
+    }
+
+    // Empty when the sort isn't one the facet index holds, or the index can't serve the filter
+    private Optional<ListingFacetIndex.FacetSearch> searchIndex(ListingBrowseFilter filter, Pageable pageable,
+                                                                boolean withFacets) {
+        Sort.Order order = pageable.getSort().stream().findFirst().orElse(null);
+        return Optional.ofNullable(order)
+                .flatMap(first -> ListingSortKey.fromProperty(first.getProperty()))
+                .flatMap(sortKey -> listingFacetIndex.search(filter, sortKey, order.getDirection(),
+                        pageable.getOffset(), pageable.getPageSize(), withFacets));
+    }
+
+    private Slice<ListingSummaryDto> toSlice(ListingFacetIndex.FacetSearch result, Pageable pageable,
+                                             CountMode countMode) {
+        List<Long> ids = LongStream.of(result.getListingIds()).boxed().collect(Collectors.toList());
+        List<ListingSummaryDto> content = findInOrder(ids);
+        return countMode == CountMode.NONE
+                ? new SliceImpl<>(content, pageable, pageable.getOffset() + ids.size() < result.getTotal())
+                : new PageImpl<>(content, pageable, result.getTotal());
+    }
+
+    // Listings deleted since the IDs were read are skipped
+    private List<ListingSummaryDto> findInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ListingSummaryDto> listingsById = listingRepository.findSummariesByIdIn(ids).stream()
+                .collect(Collectors.toMap(ListingSummaryDto::getId, Function.identity(), (first, second) -> first));
+        return ids.stream()
+                .map(listingsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private ListingDto mapToDto(Listing listing) {
+        ListingDto dto = ListingDto.builder()
+                .id(listing.getId())
+                .title(listing.getTitle())
+                .description(listing.getDescription())
+                .sellerId(listing.getSeller().getId())
+                .sellerBusinessName(listing.getSeller().getBusinessName())
+                .categoryId(listing.getCategory().getId())
+                .categoryName(listing.getCategory().getName())
+                .condition(listing.getCondition())
+                .price(listing.getPrice())
+                .oemPartNumber(listing.getOemPartNumber())
+                .aftermarketPartNumber(listing.getAftermarketPartNumber())
+                .quantity(listing.getQuantity())
+                .warrantyInformation(listing.getWarrantyInformation())
+                .averageRating(listing.getAverageRating())
+                .totalRatings(listing.getTotalRatings())
+                .active(listing.isActive())
+                .featured(listing.isFeatured())
+                .createdAt(listing.getCreatedAt())
+                .updatedAt(listing.getUpdatedAt())
+                .build();
+
+        if (listing.getBrand() != null) {
+            dto.setBrandId(listing.getBrand().getId());
+            dto.setBrandName(listing.getBrand().getName());
+        }
+
+        if (listing.getImages() != null) {
+            dto.setImages(listing.getImages().stream()
+                    .map(image -> ListingImageDto.builder()
+                            .id(image.getId())
+                            .imageUrl(image.getImageUrl())
+                            .primary(image.isPrimary())
+                            .build())
+                    .collect(Collectors.toList()));
+        }
+
+        if (listing.getCompatibilityMappings() != null) {
+            dto.setCompatibilityMappings(listing.getCompatibilityMappings().stream()
+                    .map(mapping -> CompatibilityMappingDto.builder()
+                            .id(mapping.getId())
+                            .make(mapping.getMake().getName())
+                            .model(mapping.getModel().getName())
+                            .yearStart(mapping.getYearStart())
+                            .yearEnd(mapping.getYearEnd())
+                            .engine(mapping.getEngine() != null ? mapping.getEngine().getName() : null)
+                            .trim(mapping.getTrim() != null ? mapping.getTrim().getName() : null)
+                            .build())
+                    .collect(Collectors.toSet()));
+        }
+
+        return dto;
+    }
+
+    private void evictAll(String cacheName, List<?> keys) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache instanceof TwoTierCache twoTier) {
+            twoTier.evictAll(keys);
+        } else if (cache != null) {
+            keys.forEach(cache::evict);
+        }
+    }
+}
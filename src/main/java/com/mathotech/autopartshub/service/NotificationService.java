@@ -1,5 +1,6 @@
 package com.mathotech.autopartshub.service;
 
+import com.mathotech.autopartshub.dto.CountMode;
 import com.mathotech.autopartshub.dto.notification.NotificationDto;
 import com.mathotech.autopartshub.model.Notification;
 import com.mathotech.autopartshub.model.NotificationType;
@@ -9,11 +10,16 @@ import com.mathotech.autopartshub.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -21,6 +27,7 @@ public class NotificationService {
 
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
+    private final PageCountService pageCountService;
 
     @Transactional
     public NotificationDto createNotification(Long userId, NotificationType type, String title, 
@@ -73,6 +80,28 @@ public class NotificationService {
         );
     }
 
+    /**
+     * The same status change for many orders at once, such as orders cancelled by the expiry
+     * sweep. Users are referenced rather than loaded and the rows are saved as one batch.
+     *
+     * @param recipients order ID to the users to notify about it
+     */
+    @Transactional
+    public void createOrderStatusUpdatedNotifications(Map<Long, Set<Long>> recipients, String oldStatus, String newStatus) {
+        List<Notification> notifications = new ArrayList<>();
+        recipients.forEach((orderId, userIds) -> userIds.forEach(userId -> notifications.add(Notification.builder()
+                .user(userRepository.getReferenceById(userId))
+                .type(NotificationType.ORDER_STATUS_UPDATED)
+                .title("Order Status Updated")
+                .message("Your order status has changed from " + oldStatus + " to " + newStatus + ".")
+                .referenceId(orderId)
+                .referenceType("Order")
+                .actionUrl("/orders/" + orderId)
+                .read(false)
+                .build())));
+        notificationRepository.saveAll(notifications);
+    }
+
     @Transactional
     public void createPaymentSuccessfulNotification(Long userId, Long orderId) {
         createNotification(
@@ -138,14 +167,16 @@ public class NotificationService {
         );
     }
 
-    public Page<NotificationDto> getUserNotifications(Long userId, Pageable pageable) {
-        Page<Notification> notifications = notificationRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
-        return notifications.map(this::mapToDto);
+    public Slice<NotificationDto> getUserNotifications(Long userId, Pageable pageable, CountMode countMode) {
+        Slice<Notification> notifications = notificationRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
+        return pageCountService.toResponse(countMode, pageable, notifications, "notifications:user:" + userId,
+                () -> notificationRepository.countByUserId(userId)).map(this::mapToDto);
     }
 
-    public Page<NotificationDto> getUnreadNotifications(Long userId, Pageable pageable) {
-        Page<Notification> notifications = notificationRepository.findByUserIdAndReadOrderByCreatedAtDesc(userId, false, pageable);
-        return notifications.map(this::mapToDto);
+    public Slice<NotificationDto> getUnreadNotifications(Long userId, Pageable pageable, CountMode countMode) {
+        Slice<Notification> notifications = notificationRepository.findByUserIdAndReadOrderByCreatedAtDesc(userId, false, pageable);
+        return pageCountService.toResponse(countMode, pageable, notifications, "notifications:unread:" + userId,
+                () -> notificationRepository.countByUserIdAndRead(userId, false)).map(this::mapToDto);
     }
 
     public long getUnreadCount(Long userId) {
@@ -0,0 +1,105 @@
+package com.mathotech.autopartshub.service;
+
+import com.mathotech.autopartshub.model.OrderStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cancels orders still awaiting payment after the payment window and returns their stock.
+ * <p>
+ * Every node runs the sweep. Each chunk claims its orders with FOR UPDATE SKIP LOCKED, so nodes
+ * split the backlog between them instead of waiting on each other. Status changes made through
+ * OrderService lock the same rows, so an order is either paid or cancelled, never both. A chunk is
+ * one transaction: the cancellation, the stock returned and the notifications commit together.
+ */
+@Service
+@Slf4j
+public class OrderExpiryService {
+
+    private static final String EXPIRE_SQL =
+            "WITH expired AS (SELECT id FROM orders WHERE status = 'PENDING_PAYMENT' AND created_at < NOW() - ? * INTERVAL '1 minute' " +
+            "ORDER BY created_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "UPDATE orders o SET status = 'CANCELLED', cancelled_date = NOW(), updated_at = NOW() " +
+            "FROM expired e WHERE o.id = e.id RETURNING o.id, o.buyer_id";
+
+    private static final String ITEMS_SQL =
+            "SELECT order_id, listing_id, seller_id, quantity FROM order_items WHERE order_id IN (%s)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryService inventoryService;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.order-expiry.payment-window-minutes:60}")
+    private int paymentWindowMinutes;
+
+    @Value("${app.order-expiry.chunk-size:500}")
+    private int chunkSize;
+
+    public OrderExpiryService(JdbcTemplate jdbcTemplate, InventoryService inventoryService,
+                              NotificationService notificationService, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventoryService = inventoryService;
+        this.notificationService = notificationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Works through expired orders a chunk at a time until none are left unclaimed.
+     */
+    @Scheduled(fixedDelayString = "${app.order-expiry.interval-ms:60000}",
+            initialDelayString = "${app.order-expiry.interval-ms:60000}")
+    public void expireUnpaidOrders() {
+        int total = 0;
+        try {
+            int expired;
+            do {
+                Integer count = transactionTemplate.execute(status -> expireChunk());
+                expired = count != null ? count : 0;
+                total += expired;
+            } while (expired == chunkSize);
+        } catch (Exception ex) {
+            log.error("Failed to expire unpaid orders", ex);
+        }
+        if (total > 0) {
+            log.info("Cancelled {} orders unpaid after {} minutes", total, paymentWindowMinutes);
+        }
+    }
+
+    private int expireChunk() {
+        // Order ID to everyone told about its cancellation, buyer first
+        Map<Long, Set<Long>> recipients = new HashMap<>();
+        jdbcTemplate.query(EXPIRE_SQL, rs -> {
+            Set<Long> users = new LinkedHashSet<>();
+            users.add(rs.getLong("buyer_id"));
+            recipients.put(rs.getLong("id"), users);
+        }, paymentWindowMinutes, chunkSize);
+        if (recipients.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Integer> quantities = new HashMap<>();
+        String sql = String.format(ITEMS_SQL, String.join(", ", Collections.nCopies(recipients.size(), "?")));
+        jdbcTemplate.query(sql, rs -> {
+            quantities.merge(rs.getLong("listing_id"), rs.getInt("quantity"), Integer::sum);
+            recipients.get(rs.getLong("order_id")).add(rs.getLong("seller_id"));
+        }, recipients.keySet().toArray());
+
+        inventoryService.release(quantities);
+        notificationService.createOrderStatusUpdatedNotifications(recipients,
+                OrderStatus.PENDING_PAYMENT.toString(), OrderStatus.CANCELLED.toString());
+        return recipients.size();
+    }
+}
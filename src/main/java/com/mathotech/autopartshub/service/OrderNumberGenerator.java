@@ -0,0 +1,79 @@
+package com.mathotech.autopartshub.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Issues order numbers such as AH-261017-0001Z8: the UTC date the order was placed, then a
+ * sequence number in Crockford base 32, which has no I, L, O or U to misread over the phone.
+ * <p>
+ * Numbers come from blocks of the order_number_seq sequence, so they are unique across nodes
+ * and one round trip serves a thousand orders. Within a node they increase with time; across
+ * nodes they interleave by block. Blocks left unfinished when a node stops are skipped.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderNumberGenerator {
+
+    // Must match the INCREMENT BY of order_number_seq
+    private static final int BLOCK_SIZE = 1000;
+
+    private static final String NEXT_BLOCK_SQL = "SELECT nextval('order_number_seq')";
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyMMdd");
+    private static final char[] DIGITS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int MIN_DIGITS = 6;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Block block = new Block(0, 0);
+
+    public String next() {
+        return format(LocalDate.now(ZoneOffset.UTC), nextValue());
+    }
+
+    private long nextValue() {
+        while (true) {
+            Block current = block;
+            long value = current.next.getAndIncrement();
+            if (value < current.end) {
+                return value;
+            }
+            synchronized (this) {
+                // Another thread may have fetched a block while this one waited
+                if (block == current) {
+                    Long start = jdbcTemplate.queryForObject(NEXT_BLOCK_SQL, Long.class);
+                    block = new Block(start, start + BLOCK_SIZE);
+                }
+            }
+        }
+    }
+
+    private static String format(LocalDate date, long value) {
+        char[] digits = new char[13];
+        int pos = digits.length;
+        do {
+            digits[--pos] = DIGITS[(int) (value & 31)];
+            value >>>= 5;
+        } while (value != 0);
+        while (digits.length - pos < MIN_DIGITS) {
+            digits[--pos] = '0';
+        }
+        return "AH-" + DATE.format(date) + "-" + new String(digits, pos, digits.length - pos);
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.mathotech.autopartshub.service;
 
+import com.mathotech.autopartshub.dto.CountMode;
 import com.mathotech.autopartshub.dto.order.CreateOrderRequest;
 import com.mathotech.autopartshub.dto.order.OrderDto;
 import com.mathotech.autopartshub.dto.order.OrderItemDto;
@@ -12,8 +13,8 @@ import com.mathotech.autopartshub.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,8 +23,11 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,6 +39,9 @@ public class OrderService {
     private final UserRepository userRepository;
     private final ListingRepository listingRepository;
     private final NotificationService notificationService;
+    private final PageCountService pageCountService;
+    private final InventoryService inventoryService;
+    private final OrderNumberGenerator orderNumberGenerator;
     
     @Value("${app.tax-rate:0.15}")  // Default VAT rate in South Africa is 15%
     private BigDecimal taxRate;
@@ -47,23 +54,26 @@ public class OrderService {
         User buyer = userRepository.findById(buyerId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + buyerId));
 
-        // Validate items and calculate subtotal
+        // Reserve stock for every line in one batch; a listing on several lines is reserved once
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (var itemRequest : request.getItems()) {
+            quantities.merge(itemRequest.getListingId(), itemRequest.getQuantity(), Integer::sum);
+        }
+        inventoryService.reserve(quantities);
+
+        // Prices are the committed ones as of this read. Listings reserved from their row stay
+        // locked until the order commits, so their price can't change before then. Hot listings
+        // served from an allotment are not locked: an edit committing during the checkout can
+        // leave the order at the price shown just before it, as if the buyer had checked out first.
+        Map<Long, Listing> listings = listingRepository.findAllWithSellerByIdIn(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Listing::getId, Function.identity()));
+
+        // Build items and calculate subtotal
         List<OrderItem> orderItems = new ArrayList<>();
         BigDecimal subtotal = BigDecimal.ZERO;
 
         for (var itemRequest : request.getItems()) {
-            Listing listing = listingRepository.findById(itemRequest.getListingId())
-                    .orElseThrow(() -> new EntityNotFoundException("Listing not found with id: " + itemRequest.getListingId()));
-
-            // Check if listing is active
-            if (!listing.isActive()) {
-                throw new IllegalStateException("Listing is not active: " + listing.getTitle());
-            }
-
-            // Check if the requested quantity is available
-            if (listing.getQuantity() < itemRequest.getQuantity()) {
-                throw new IllegalStateException("Not enough quantity available for: " + listing.getTitle());
-            }
+            Listing listing = listings.get(itemRequest.getListingId());
 
             // Calculate item total price
             BigDecimal itemTotalPrice = listing.getPrice().multiply(BigDecimal.valueOf(itemRequest.getQuantity()));
@@ -79,10 +89,6 @@ public class OrderService {
             orderItem.setTotalPrice(itemTotalPrice);
 
             orderItems.add(orderItem);
-
-            // Update listing quantity
-            listing.setQuantity(listing.getQuantity() - itemRequest.getQuantity());
-            listingRepository.save(listing);
         }
 
         // Calculate tax and total
@@ -92,6 +98,7 @@ public class OrderService {
         // Create new order
         Order order = new Order();
         order.setBuyer(buyer);
+        order.setOrderNumber(orderNumberGenerator.next());
         order.setStatus(OrderStatus.PENDING_PAYMENT);
         order.setSubtotal(subtotal);
         order.setShippingFee(defaultShippingFee);
@@ -158,33 +165,37 @@ public class OrderService {
     }
 
     @Transactional(readOnly = true)
-    public Page<OrderDto> getOrdersByBuyer(Long buyerId, Pageable pageable) {
-        Page<Order> orders = orderRepository.findByBuyerId(buyerId, pageable);
-        return orders.map(this::mapToDto);
+    public Slice<OrderDto> getOrdersByBuyer(Long buyerId, Pageable pageable, CountMode countMode) {
+        Slice<Order> orders = orderRepository.findByBuyerId(buyerId, pageable);
+        return pageCountService.toResponse(countMode, pageable, orders, "orders:buyer:" + buyerId,
+                () -> orderRepository.countByBuyerId(buyerId)).map(this::mapToDto);
     }
 
     @Transactional(readOnly = true)
-    public Page<OrderDto> getOrdersBySeller(Long sellerId, Pageable pageable) {
-        Page<Order> orders = orderRepository.findBySellerId(sellerId, pageable);
-        return orders.map(this::mapToDto);
+    public Slice<OrderDto> getOrdersBySeller(Long sellerId, Pageable pageable, CountMode countMode) {
+        Slice<Order> orders = orderRepository.findBySellerId(sellerId, pageable);
+        return pageCountService.toResponse(countMode, pageable, orders, "orders:seller:" + sellerId,
+                () -> orderRepository.countBySellerId(sellerId)).map(this::mapToDto);
     }
 
     @Transactional(readOnly = true)
-    public Page<OrderDto> getOrdersByBuyerAndStatus(Long buyerId, OrderStatus status, Pageable pageable) {
-        Page<Order> orders = orderRepository.findByBuyerIdAndStatus(buyerId, status, pageable);
-        return orders.map(this::mapToDto);
+    public Slice<OrderDto> getOrdersByBuyerAndStatus(Long buyerId, OrderStatus status, Pageable pageable, CountMode countMode) {
+        Slice<Order> orders = orderRepository.findByBuyerIdAndStatus(buyerId, status, pageable);
+        return pageCountService.toResponse(countMode, pageable, orders, "orders:buyer:" + buyerId + ":" + status,
+                () -> orderRepository.countByBuyerIdAndStatus(buyerId, status)).map(this::mapToDto);
     }
 
     @Transactional(readOnly = true)
-    public Page<OrderDto> getOrdersBySellerAndStatus(Long sellerId, OrderStatus status, Pageable pageable) {
-        Page<Order> orders = orderRepository.findBySellerIdAndStatus(sellerId, status, pageable);
-        return orders.map(this::mapToDto);
+    public Slice<OrderDto> getOrdersBySellerAndStatus(Long sellerId, OrderStatus status, Pageable pageable, CountMode countMode) {
+        Slice<Order> orders = orderRepository.findBySellerIdAndStatus(sellerId, status, pageable);
+        return pageCountService.toResponse(countMode, pageable, orders, "orders:seller:" + sellerId + ":" + status,
+                () -> orderRepository.countBySellerIdAndStatus(sellerId, status)).map(this::mapToDto);
     }
 
     @Transactional
     public OrderDto updateOrderStatus(UpdateOrderStatusRequest request, Long orderId, Long userId) {
         // Find order and check permissions
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findByIdForUpdate(orderId)
                 .orElseThrow(() -> new EntityNotFoundException("Order not found with id: " + orderId));
         
         User user = userRepository.findById(userId)
@@ -316,17 +327,19 @@ public class OrderService {
     }
     
     private void returnItemsToInventory(Order order) {
-        // Return quantities to listings
+        Map<Long, Integer> quantities = new HashMap<>();
         for (OrderItem item : order.getItems()) {
-            Listing listing = item.getListing();
-            listing.setQuantity(listing.getQuantity() + item.getQuantity());
-            listingRepository.save(listing);
+            quantities.merge(item.getListing().getId(), item.getQuantity(), Integer::sum);
+        }
+        if (!quantities.isEmpty()) {
+            inventoryService.release(quantities);
         }
     }
 
     private OrderDto mapToDto(Order order) {
         OrderDto dto = OrderDto.builder()
                 .id(order.getId())
+                .orderNumber(order.getOrderNumber())
                 .buyerId(order.getBuyer().getId())
                 .buyerName(order.getBuyer().getFirstName() + " " + order.getBuyer().getLastName())
                 .buyerEmail(order.getBuyer().getEmail())
@@ -0,0 +1,110 @@
+package com.mathotech.autopartshub.service;
+
+import com.mathotech.autopartshub.dto.CountMode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Turns a Slice fetched without a COUNT query into the response shape the caller asked for.
+ * Approximate totals are kept per count key (one key per distinct filter) and served stale while
+ * a background thread recounts them, so at most one COUNT per key runs every TTL period.
+ */
+@Service
+@Slf4j
+public class PageCountService {
+
+    private final Map<String, CachedCount> counts = new ConcurrentHashMap<>();
+
+    private final ExecutorService refresher = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "page-count-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${app.pagination.approximate-count.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${app.pagination.approximate-count.max-keys:10000}")
+    private int maxKeys;
+
+    public <T> Slice<T> toResponse(CountMode mode, Pageable pageable, Slice<T> slice,
+                                   String countKey, LongSupplier countQuery) {
+        switch (mode) {
+            case NONE:
+                return slice;
+            case APPROXIMATE:
+                // Never report fewer rows than this page has already proven to exist
+                long seen = pageable.getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0);
+                long total = Math.max(approximateCount(countKey, countQuery), seen);
+                return new PageImpl<>(slice.getContent(), pageable, total);
+            default:
+                return PageableExecutionUtils.getPage(slice.getContent(), pageable, countQuery);
+        }
+    }
+
+    long approximateCount(String key, LongSupplier countQuery) {
+        long now = System.currentTimeMillis();
+        CachedCount cached = counts.get(key);
+        if (cached == null) {
+            long value = countQuery.getAsLong();
+            if (counts.size() < maxKeys) {
+                counts.put(key, new CachedCount(value, now));
+            }
+            return value;
+        }
+
+        cached.lastReadAt = now;
+        if (now - cached.countedAt > ttlSeconds * 1000 && cached.refreshing.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                try {
+                    counts.put(key, new CachedCount(countQuery.getAsLong(), System.currentTimeMillis()));
+                } catch (Exception ex) {
+                    cached.refreshing.set(false);
+                    log.warn("Failed to refresh approximate count {}", key, ex);
+                }
+            });
+        }
+        return cached.value;
+    }
+
+    /**
+     * Drops counters nobody has read for ten TTL periods so rarely used filters don't pin memory.
+     */
+    @Scheduled(fixedDelayString = "${app.pagination.approximate-count.sweep-interval-ms:300000}")
+    public void evictIdleCounts() {
+        long cutoff = System.currentTimeMillis() - ttlSeconds * 1000 * 10;
+        counts.values().removeIf(count -> count.lastReadAt < cutoff);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private static final class CachedCount {
+        private final long value;
+        private final long countedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile long lastReadAt;
+
+        private CachedCount(long value, long countedAt) {
+            this.value = value;
+            this.countedAt = countedAt;
+            this.lastReadAt = countedAt;
+        }
+    }
+}
@@ -153,7 +153,9 @@ public class PaymentService {
             return false;
         }
         
-        Order order = orderRepository.findById(orderId)
+        // Lock on the first read: a later locking query would return this already-loaded entity
+        // unchanged, so the status checks below could miss a cancellation by the expiry sweep
+        Order order = orderRepository.findByIdForUpdate(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
         
         // 5. Verify payment amount with a small tolerance for currency conversion issues
@@ -0,0 +1,310 @@
+package com.mathotech.autopartshub.service;
+
+import com.mathotech.autopartshub.config.RedisConfig;
+import com.mathotech.autopartshub.dto.brand.BrandDto;
+import com.mathotech.autopartshub.dto.category.CategoryDto;
+import com.mathotech.autopartshub.event.ReferenceDataChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Every category and brand, held as an immutable snapshot with arrays indexed by ID and swapped
+ * whole on reload, so reads never wait on a reload or on each other.
+ * <p>
+ * Each change bumps a version row in the same transaction. After commit the writing node reloads
+ * before the request returns, so its next read sees the change, and then announces the version on
+ * Redis; the other nodes reload when they hear a version newer than
+ * theirs. Pub/sub delivery isn't guaranteed, so each node also polls the version row.
+ */
+@Service
+@Slf4j
+public class ReferenceDataService {
+
+    private static final String BUMP_VERSION_SQL =
+            "UPDATE reference_data_version SET version = version + 1 WHERE id = 1 RETURNING version";
+    private static final String VERSION_SQL = "SELECT version FROM reference_data_version WHERE id = 1";
+    private static final String CATEGORIES_SQL = "SELECT id, name, description, parent_id FROM categories ORDER BY id";
+    private static final String BRANDS_SQL = "SELECT id, name, description, logo_url FROM brands ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final CategoryTree categoryTree;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate loadTransaction;
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reference-data-load");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Snapshot snapshot;
+
+    public ReferenceDataService(JdbcTemplate jdbcTemplate, StringRedisTemplate redisTemplate,
+                                CategoryTree categoryTree, ApplicationEventPublisher eventPublisher,
+                                PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisTemplate = redisTemplate;
+        this.categoryTree = categoryTree;
+        this.eventPublisher = eventPublisher;
+        // The version and both tables must be read from one snapshot of the database. Its own
+        // transaction, since markChanged loads from afterCommit, where the finished transaction
+        // is still bound
+        this.loadTransaction = new TransactionTemplate(transactionManager);
+        this.loadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.loadTransaction.setReadOnly(true);
+        this.loadTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    public long getVersion() {
+        return current().version;
+    }
+
+    /**
+     * Top-level categories, each with its direct subcategories.
+     */
+    public List<CategoryDto> getRootCategories() {
+        return current().roots;
+    }
+
+    /**
+     * The category with its direct subcategories.
+     */
+    public Optional<CategoryDto> findCategory(Long id) {
+        return Optional.ofNullable(at(current().categories, id));
+    }
+
+    public List<CategoryDto> getSubcategories(Long parentId) {
+        List<CategoryDto> children = at(current().children, parentId);
+        return children != null ? children : List.of();
+    }
+
+    /**
+     * All brands in ID order.
+     */
+    public List<BrandDto> getBrands() {
+        return current().allBrands;
+    }
+
+    public Optional<BrandDto> findBrand(Long id) {
+        return Optional.ofNullable(at(current().brands, id));
+    }
+
+    /**
+     * Records a category or brand change. Must run inside the transaction making the change;
+     * once it commits this node installs the new snapshot before returning, then tells the others.
+     */
+    public void markChanged() {
+        long version = jdbcTemplate.queryForObject(BUMP_VERSION_SQL, Long.class);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    install(load());
+                } catch (Exception ex) {
+                    log.error("Failed to load reference data version {}; retrying in the background", version, ex);
+                    loader.submit(() -> reload(version));
+                }
+                try {
+                    redisTemplate.convertAndSend(RedisConfig.REFERENCE_DATA_CHANNEL, Long.toString(version));
+                } catch (Exception ex) {
+                    log.warn("Failed to announce reference data version {}; other nodes will poll for it", version, ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Called by the Redis listener with another node's new version.
+     */
+    public void onRemoteChange(String payload) {
+        long version;
+        try {
+            version = Long.parseLong(payload.trim());
+        } catch (NumberFormatException ex) {
+            log.warn("Ignoring malformed reference data version '{}'", payload);
+            return;
+        }
+        Snapshot current = snapshot;
+        if (current == null || current.version < version) {
+            loader.submit(() -> reload(version));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        loader.submit(() -> reload(0));
+    }
+
+    @Scheduled(fixedDelayString = "${app.reference-data.poll-interval-ms:60000}",
+            initialDelayString = "${app.reference-data.poll-interval-ms:60000}")
+    public void pollVersion() {
+        try {
+            Long version = jdbcTemplate.queryForObject(VERSION_SQL, Long.class);
+            Snapshot current = snapshot;
+            if (version != null && (current == null || current.version < version)) {
+                loader.submit(() -> reload(version));
+            }
+        } catch (Exception ex) {
+            log.error("Failed to check reference data version", ex);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    private void reload(long minVersion) {
+        Snapshot current = snapshot;
+        if (current != null && current.version >= minVersion) {
+            return;
+        }
+        try {
+            install(load());
+        } catch (Exception ex) {
+            log.error("Failed to load reference data", ex);
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        // Only requests arriving before the startup load finishes get here; the first loads and
+        // the rest wait for it
+        synchronized (this) {
+            return snapshot != null ? snapshot : install(load());
+        }
+    }
+
+    private synchronized Snapshot install(Snapshot loaded) {
+        Snapshot current = snapshot;
+        if (current != null && current.version >= loaded.version) {
+            return current;
+        }
+        snapshot = loaded;
+        if (current != null) {
+            // Another node may have moved categories; drop this node's tree along with the snapshot
+            categoryTree.invalidate();
+        }
+        log.info("Loaded reference data version {}: {} categories, {} brands",
+                loaded.version, loaded.categoryCount, loaded.allBrands.size());
+        if (current != null) {
+            eventPublisher.publishEvent(new ReferenceDataChangedEvent(loaded.version));
+        }
+        return loaded;
+    }
+
+    private Snapshot load() {
+        return loadTransaction.execute(status -> {
+            long version = jdbcTemplate.queryForObject(VERSION_SQL, Long.class);
+            List<CategoryRow> categories = jdbcTemplate.query(CATEGORIES_SQL, (rs, rowNum) -> new CategoryRow(
+                    rs.getLong("id"), rs.getString("name"), rs.getString("description"),
+                    rs.getObject("parent_id", Long.class)));
+            List<BrandDto> brands = jdbcTemplate.query(BRANDS_SQL, (rs, rowNum) -> BrandDto.builder()
+                    .id(rs.getLong("id"))
+                    .name(rs.getString("name"))
+                    .description(rs.getString("description"))
+                    .logoUrl(rs.getString("logo_url"))
+                    .build());
+            return new Snapshot(version, categories, brands);
+        });
+    }
+
+    private static <T> T at(T[] byId, Long id) {
+        if (id == null || id < 0 || id >= byId.length) {
+            return null;
+        }
+        return byId[id.intValue()];
+    }
+
+    private static final class CategoryRow {
+        private final long id;
+        private final String name;
+        private final String description;
+        private final Long parentId;
+
+        private CategoryRow(long id, String name, String description, Long parentId) {
+            this.id = id;
+            this.name = name;
+            this.description = description;
+            this.parentId = parentId;
+        }
+    }
+
+    private static final class Snapshot {
+        private final long version;
+        private final int categoryCount;
+        // Arrays are indexed by ID; IDs come from sequences, so they're dense enough
+        private final CategoryDto[] categories;
+        private final List<CategoryDto>[] children;
+        private final List<CategoryDto> roots;
+        private final BrandDto[] brands;
+        private final List<BrandDto> allBrands;
+
+        @SuppressWarnings("unchecked")
+        private Snapshot(long version, List<CategoryRow> categoryRows, List<BrandDto> brandRows) {
+            this.version = version;
+            this.categoryCount = categoryRows.size();
+
+            int categorySlots = categoryRows.isEmpty() ? 0 : (int) categoryRows.get(categoryRows.size() - 1).id + 1;
+            Map<Long, List<CategoryDto>> childrenByParent = new HashMap<>();
+            for (CategoryRow row : categoryRows) {
+                CategoryDto dto = CategoryDto.builder()
+                        .id(row.id)
+                        .name(row.name)
+                        .description(row.description)
+                        .parentId(row.parentId)
+                        .subcategories(List.of())
+                        .build();
+                if (row.parentId != null) {
+                    childrenByParent.computeIfAbsent(row.parentId, k -> new ArrayList<>()).add(dto);
+                }
+            }
+
+            categories = new CategoryDto[categorySlots];
+            children = new List[categorySlots];
+            List<CategoryDto> rootList = new ArrayList<>();
+            for (CategoryRow row : categoryRows) {
+                int slot = (int) row.id;
+                children[slot] = List.copyOf(childrenByParent.getOrDefault(row.id, List.of()));
+                categories[slot] = CategoryDto.builder()
+                        .id(row.id)
+                        .name(row.name)
+                        .description(row.description)
+                        .parentId(row.parentId)
+                        .subcategories(children[slot])
+                        .build();
+                if (row.parentId == null) {
+                    rootList.add(categories[slot]);
+                }
+            }
+            roots = List.copyOf(rootList);
+
+            int brandSlots = brandRows.isEmpty() ? 0 : brandRows.get(brandRows.size() - 1).getId().intValue() + 1;
+            brands = new BrandDto[brandSlots];
+            for (BrandDto brand : brandRows) {
+                brands[brand.getId().intValue()] = brand;
+            }
+            allBrands = List.copyOf(brandRows);
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.mathotech.autopartshub.service;
 
+import com.mathotech.autopartshub.dto.CountMode;
 import com.mathotech.autopartshub.dto.review.CreateProductReviewRequest;
 import com.mathotech.autopartshub.dto.review.CreateSellerReviewRequest;
 import com.mathotech.autopartshub.dto.review.ReviewDto;
 import com.mathotech.autopartshub.dto.review.SellerReviewResponseRequest;
+import com.mathotech.autopartshub.event.ListingChangedEvent;
+import com.mathotech.autopartshub.event.ListingChangedEvent.ChangeType;
 import com.mathotech.autopartshub.model.*;
 import com.mathotech.autopartshub.repository.ListingRepository;
 import com.mathotech.autopartshub.repository.OrderItemRepository;
@@ -12,12 +15,16 @@ import com.mathotech.autopartshub.repository.ReviewRepository;
 import com.mathotech.autopartshub.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
 @Service
 @RequiredArgsConstructor
 public class ReviewService {
@@ -27,6 +34,8 @@ public class ReviewService {
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final ListingRepository listingRepository;
+    private final PageCountService pageCountService;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Transactional
     public ReviewDto createProductReview(CreateProductReviewRequest request, Long buyerId) {
@@ -66,6 +75,13 @@ public class ReviewService {
                 .build();
         
         Review savedReview = reviewRepository.save(review);
+
+        // Keep the listing's rating summary in step with its reviews
+        Double average = reviewRepository.calculateAverageRating(ReviewType.PRODUCT, listing.getId());
+        listingRepository.updateRating(listing.getId(),
+                average != null ? BigDecimal.valueOf(average).setScale(2, RoundingMode.HALF_UP) : null,
+                reviewRepository.countByTypeAndTargetId(ReviewType.PRODUCT, listing.getId()).intValue());
+        eventPublisher.publishEvent(new ListingChangedEvent(listing.getId(), ChangeType.UPDATED));
         
         return mapToDto(savedReview, listing.getTitle());
     }
@@ -155,54 +171,76 @@ public class ReviewService {
         return mapToDto(updatedReview, targetName);
     }
     
-    public Page<ReviewDto> getProductReviews(Long listingId, Pageable pageable) {
-        Page<Review> reviews = reviewRepository.findByTypeAndTargetId(ReviewType.PRODUCT, listingId, pageable);
+    public Slice<ReviewDto> getProductReviews(Long listingId, Pageable pageable, CountMode countMode) {
+        Slice<Review> reviews = pageCountService.toResponse(countMode, pageable,
+                reviewRepository.findByTypeAndTargetId(ReviewType.PRODUCT, listingId, pageable),
+                "reviews:product:" + listingId,
+                () -> reviewRepository.countByTypeAndTargetId(ReviewType.PRODUCT, listingId));
         
-        String productName = listingRepository.findById(listingId)
-                .map(Listing::getTitle)
-                .orElse("Unknown Product");
+        String productName = productName(listingId);
         
         return reviews.map(review -> mapToDto(review, productName));
     }
+
+    /**
+     * Versions a listing's review pages by the review count, the latest review edit and the
+     * listing title shown with each review. Reviewer name changes aren't covered; clients pick
+     * them up when the reviews next change.
+     */
+    public String getProductReviewsEtag(Long listingId) {
+        ReviewRepository.ReviewStamp stamp = reviewRepository.findStamp(ReviewType.PRODUCT, listingId);
+        return ETags.of("product-reviews", listingId, stamp.getCount(), stamp.getLastUpdated(),
+                productName(listingId).hashCode());
+    }
     
-    public Page<ReviewDto> getSellerReviews(Long sellerId, Pageable pageable) {
-        Page<Review> reviews = reviewRepository.findByTypeAndTargetId(ReviewType.SELLER, sellerId, pageable);
+    public Slice<ReviewDto> getSellerReviews(Long sellerId, Pageable pageable, CountMode countMode) {
+        Slice<Review> reviews = pageCountService.toResponse(countMode, pageable,
+                reviewRepository.findByTypeAndTargetId(ReviewType.SELLER, sellerId, pageable),
+                "reviews:seller:" + sellerId,
+                () -> reviewRepository.countByTypeAndTargetId(ReviewType.SELLER, sellerId));
         
-        String sellerName = userRepository.findById(sellerId)
-                .map(user -> {
-                    if (user.getSeller() != null) {
-                        return user.getSeller().getBusinessName();
-                    }
-                    return user.getFirstName() + " " + user.getLastName();
-                })
-                .orElse("Unknown Seller");
+        String sellerName = sellerName(sellerId);
         
         return reviews.map(review -> mapToDto(review, sellerName));
     }
+
+    public String getSellerReviewsEtag(Long sellerId) {
+        ReviewRepository.ReviewStamp stamp = reviewRepository.findStamp(ReviewType.SELLER, sellerId);
+        return ETags.of("seller-reviews", sellerId, stamp.getCount(), stamp.getLastUpdated(),
+                sellerName(sellerId).hashCode());
+    }
     
-    public Page<ReviewDto> getUserReviews(Long userId, Pageable pageable) {
-        Page<Review> reviews = reviewRepository.findByReviewerId(userId, pageable);
+    public Slice<ReviewDto> getUserReviews(Long userId, Pageable pageable, CountMode countMode) {
+        Slice<Review> reviews = pageCountService.toResponse(countMode, pageable,
+                reviewRepository.findByReviewerId(userId, pageable),
+                "reviews:reviewer:" + userId,
+                () -> reviewRepository.countByReviewerId(userId));
         
         return reviews.map(review -> {
-            String targetName = "";
-            if (review.getType() == ReviewType.PRODUCT) {
-                targetName = listingRepository.findById(review.getTargetId())
-                        .map(Listing::getTitle)
-                        .orElse("Unknown Product");
-            } else {
-                targetName = userRepository.findById(review.getTargetId())
-                        .map(user -> {
-                            if (user.getSeller() != null) {
-                                return user.getSeller().getBusinessName();
-                            }
-                            return user.getFirstName() + " " + user.getLastName();
-                        })
-                        .orElse("Unknown Seller");
-            }
+            String targetName = review.getType() == ReviewType.PRODUCT
+                    ? productName(review.getTargetId())
+                    : sellerName(review.getTargetId());
             
             return mapToDto(review, targetName);
         });
     }
+
+    private String productName(Long listingId) {
+        return listingRepository.findById(listingId)
+                .map(Listing::getTitle)
+                .orElse("Unknown Product");
+    }
+
+    private String sellerName(Long sellerId) {
+        return userRepository.findById(sellerId)
+                .map(user -> {
+                    if (user.getSeller() != null) {
+                        return user.getSeller().getBusinessName();
+                    }
+                    return user.getFirstName() + " " + user.getLastName();
+                })
+                .orElse("Unknown Seller");
+    }
     
     private ReviewDto mapToDto(Review review, String targetName) {
         User reviewer = review.getReviewer();
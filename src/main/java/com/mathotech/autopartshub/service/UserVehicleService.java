@@ -0,0 +1,154 @@
+package com.mathotech.autopartshub.service;
+
+import com.mathotech.autopartshub.dto.FitCheckResultDto;
+import com.mathotech.autopartshub.dto.UserVehicleDto;
+import com.mathotech.autopartshub.dto.VinDecodeDto;
+import com.mathotech.autopartshub.model.User;
+import com.mathotech.autopartshub.model.UserVehicle;
+import com.mathotech.autopartshub.repository.*;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Buyers' saved vehicles, and the "fits your car" check for a batch of listings against one of
+ * them.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserVehicleService {
+
+    private final UserVehicleRepository userVehicleRepository;
+    private final UserRepository userRepository;
+    private final VehicleMakeRepository vehicleMakeRepository;
+    private final VehicleModelRepository vehicleModelRepository;
+    private final VehicleEngineRepository vehicleEngineRepository;
+    private final CompatibilityMappingRepository compatibilityMappingRepository;
+    private final VehicleCatalogService vehicleCatalogService;
+    private final VinDecoderService vinDecoderService;
+    private final VehicleFitmentIndex vehicleFitmentIndex;
+
+    @Value("${app.garage.max-vehicles:10}")
+    private int maxVehicles;
+
+    @Transactional(readOnly = true)
+    public List<UserVehicleDto> getGarage(Long userId) {
+        return userVehicleRepository.findByUserIdOrderByCreatedAtAsc(userId).stream()
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Saves a vehicle given as a VIN or as make, model and year. Only vehicles in the catalog can
+     * be saved, since nothing else can have fitting parts; an engine the catalog doesn't know is
+     * left off.
+     */
+    @Transactional
+    public UserVehicleDto addVehicle(Long userId, UserVehicleDto vehicleDto) {
+        if (userVehicleRepository.countByUserId(userId) >= maxVehicles) {
+            throw new IllegalStateException("A garage holds at most " + maxVehicles + " vehicles");
+        }
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
+
+        String make = vehicleDto.getMake();
+        String model = vehicleDto.getModel();
+        String engine = vehicleDto.getEngine();
+        Integer year = vehicleDto.getYear();
+        String vin = null;
+        if (StringUtils.hasText(vehicleDto.getVin())) {
+            VinDecodeDto decoded = vinDecoderService.decode(vehicleDto.getVin());
+            vin = decoded.getVin();
+            make = decoded.getMake();
+            model = decoded.getModel() != null ? decoded.getModel() : model;
+            engine = decoded.getEngine() != null ? decoded.getEngine() : engine;
+            year = decoded.getYear();
+        }
+        if (!StringUtils.hasText(make) || !StringUtils.hasText(model) || year == null) {
+            throw new IllegalArgumentException("Make, model and year are required when the VIN doesn't give them");
+        }
+
+        String makeName = make;
+        String modelName = model;
+        Integer makeId = vehicleCatalogService.findMakeId(make)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown vehicle make: " + makeName));
+        Integer modelId = vehicleCatalogService.findModelId(make, model)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown vehicle model: " + makeName + " " + modelName));
+        Integer engineId = StringUtils.hasText(engine)
+                ? vehicleCatalogService.findEngineId(modelId, engine).orElse(null)
+                : null;
+
+        UserVehicle vehicle = UserVehicle.builder()
+                .user(user)
+                .make(vehicleMakeRepository.getReferenceById(makeId))
+                .model(vehicleModelRepository.getReferenceById(modelId))
+                .engine(engineId != null ? vehicleEngineRepository.getReferenceById(engineId) : null)
+                .year(year)
+                .nickname(vehicleDto.getNickname())
+                .vin(vin)
+                .build();
+        return mapToDto(userVehicleRepository.save(vehicle));
+    }
+
+    @Transactional
+    public void removeVehicle(Long userId, Long vehicleId) {
+        UserVehicle vehicle = findOwnedVehicle(userId, vehicleId);
+        userVehicleRepository.delete(vehicle);
+    }
+
+    /**
+     * Says which of the listings fit the saved vehicle, with the same matching as the vehicle
+     * compatibility lookup. Answered by binary search over the fitment index's sorted ID set for
+     * the vehicle, or one IN query while the index is loading.
+     */
+    @Transactional(readOnly = true)
+    public FitCheckResultDto checkFit(Long userId, Long vehicleId, List<Long> listingIds) {
+        UserVehicle vehicle = findOwnedVehicle(userId, vehicleId);
+        Integer modelId = vehicle.getModel().getId();
+        Integer engineId = vehicle.getEngine() != null ? vehicle.getEngine().getId() : null;
+
+        Map<Long, Boolean> fits = new LinkedHashMap<>();
+        Optional<long[]> indexed = vehicleFitmentIndex.findListingIds(modelId, vehicle.getYear(), engineId);
+        if (indexed.isPresent()) {
+            long[] fittingIds = indexed.get();
+            for (Long listingId : listingIds) {
+                fits.put(listingId, listingId != null && Arrays.binarySearch(fittingIds, listingId) >= 0);
+            }
+        } else {
+            Set<Long> fittingIds = new HashSet<>(compatibilityMappingRepository.findFittingListingIds(
+                    new HashSet<>(listingIds), modelId, vehicle.getYear(), engineId));
+            for (Long listingId : listingIds) {
+                fits.put(listingId, fittingIds.contains(listingId));
+            }
+        }
+
+        return FitCheckResultDto.builder()
+                .vehicleId(vehicleId)
+                .fits(fits)
+                .build();
+    }
+
+    private UserVehicle findOwnedVehicle(Long userId, Long vehicleId) {
+        return userVehicleRepository.findByIdAndUserId(vehicleId, userId)
+                .orElseThrow(() -> new EntityNotFoundException("Vehicle not found with id: " + vehicleId));
+    }
+
+    private UserVehicleDto mapToDto(UserVehicle vehicle) {
+        return UserVehicleDto.builder()
+                .id(vehicle.getId())
+                .vin(vehicle.getVin())
+                .make(vehicle.getMake().getName())
+                .model(vehicle.getModel().getName())
+                .engine(vehicle.getEngine() != null ? vehicle.getEngine().getName() : null)
+                .year(vehicle.getYear())
+                .nickname(vehicle.getNickname())
+                .createdAt(vehicle.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,168 @@
+package com.mathotech.autopartshub.service;
+
+import com.mathotech.autopartshub.model.*;
+import com.mathotech.autopartshub.repository.VehicleEngineRepository;
+import com.mathotech.autopartshub.repository.VehicleMakeRepository;
+import com.mathotech.autopartshub.repository.VehicleModelRepository;
+import com.mathotech.autopartshub.repository.VehicleTrimRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Maps free-text vehicle names onto the make/model/engine/trim catalog. Lookups resolve make
+ * aliases ("VW" is Volkswagen) and compare normalized names, so spelling and case variants land on
+ * the same ids. Ingestion adds names the catalog hasn't seen yet.
+ */
+@Service
+@RequiredArgsConstructor
+public class VehicleCatalogService {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final VehicleMakeRepository vehicleMakeRepository;
+    private final VehicleModelRepository vehicleModelRepository;
+    private final VehicleEngineRepository vehicleEngineRepository;
+    private final VehicleTrimRepository vehicleTrimRepository;
+
+    // Catalog rows are never deleted, so a cached id can't go stale. Only lookups fill these, never
+    // ingestion, which may be running in a transaction that later rolls back.
+    private final Map<String, Integer> makeIds = new ConcurrentHashMap<>();
+    private final Map<String, Integer> modelIds = new ConcurrentHashMap<>();
+    private final Map<String, Integer> engineIds = new ConcurrentHashMap<>();
+
+    /**
+     * Same rules as the normalize_vehicle_name SQL function: trim, collapse whitespace, lowercase.
+     */
+    public static String normalize(String name) {
+        return name == null ? "" : WHITESPACE.matcher(name.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Integer> findMakeId(String make) {
+        String normalized = normalize(make);
+        if (normalized.isEmpty()) {
+            return Optional.empty();
+        }
+        Integer cached = makeIds.get(normalized);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<Integer> id = vehicleMakeRepository.findIdByAlias(normalized)
+                .or(() -> vehicleMakeRepository.findByNormalizedName(normalized).map(VehicleMake::getId));
+        id.ifPresent(value -> makeIds.put(normalized, value));
+        return id;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Integer> findModelId(String make, String model) {
+        String normalized = normalize(model);
+        if (normalized.isEmpty()) {
+            return Optional.empty();
+        }
+        return findMakeId(make).flatMap(makeId -> {
+            String key = makeId + "|" + normalized;
+            Integer cached = modelIds.get(key);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+            Optional<Integer> id = vehicleModelRepository.findByMakeIdAndNormalizedName(makeId, normalized)
+                    .map(VehicleModel::getId);
+            id.ifPresent(value -> modelIds.put(key, value));
+            return id;
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Integer> findEngineId(Integer modelId, String engine) {
+        String normalized = normalize(engine);
+        if (normalized.isEmpty()) {
+            return Optional.empty();
+        }
+        String key = modelId + "|" + normalized;
+        Integer cached = engineIds.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Integer> id = vehicleEngineRepository.findByModelIdAndNormalizedName(modelId, normalized)
+                .map(VehicleEngine::getId);
+        id.ifPresent(value -> engineIds.put(key, value));
+        return id;
+    }
+
+    /**
+     * Points the mapping at catalog rows for the given names, creating any that are missing.
+     * Engine and trim are optional.
+     */
+    @Transactional
+    public void assignVehicle(CompatibilityMapping mapping, String make, String model, String engine, String trim) {
+        VehicleMake vehicleMake = resolveMake(make);
+        VehicleModel vehicleModel = resolveModel(vehicleMake, model);
+        mapping.setMake(vehicleMake);
+        mapping.setModel(vehicleModel);
+        mapping.setEngine(StringUtils.hasText(engine) ? resolveEngine(vehicleModel, engine) : null);
+        mapping.setTrim(StringUtils.hasText(trim) ? resolveTrim(vehicleModel, trim) : null);
+    }
+
+    private VehicleMake resolveMake(String make) {
+        String normalized = normalize(make);
+        Integer id = makeIds.get(normalized);
+        if (id == null) {
+            id = vehicleMakeRepository.findIdByAlias(normalized).orElse(null);
+        }
+        if (id != null) {
+            return vehicleMakeRepository.getReferenceById(id);
+        }
+
+        return vehicleMakeRepository.findByNormalizedName(normalized).orElseGet(() -> {
+            vehicleMakeRepository.insertIfAbsent(make.trim(), normalized);
+            return vehicleMakeRepository.findByNormalizedName(normalized)
+                    .orElseThrow(() -> new IllegalStateException("Could not add vehicle make " + make));
+        });
+    }
+
+    private VehicleModel resolveModel(VehicleMake make, String model) {
+        String normalized = normalize(model);
+        Integer id = modelIds.get(make.getId() + "|" + normalized);
+        if (id != null) {
+            return vehicleModelRepository.getReferenceById(id);
+        }
+
+        return vehicleModelRepository.findByMakeIdAndNormalizedName(make.getId(), normalized).orElseGet(() -> {
+            vehicleModelRepository.insertIfAbsent(make.getId(), model.trim(), normalized);
+            return vehicleModelRepository.findByMakeIdAndNormalizedName(make.getId(), normalized)
+                    .orElseThrow(() -> new IllegalStateException("Could not add vehicle model " + model));
+        });
+    }
+
+    private VehicleEngine resolveEngine(VehicleModel model, String engine) {
+        String normalized = normalize(engine);
+        Integer id = engineIds.get(model.getId() + "|" + normalized);
+        if (id != null) {
+            return vehicleEngineRepository.getReferenceById(id);
+        }
+
+        return vehicleEngineRepository.findByModelIdAndNormalizedName(model.getId(), normalized).orElseGet(() -> {
+            vehicleEngineRepository.insertIfAbsent(model.getId(), engine.trim(), normalized);
+            return vehicleEngineRepository.findByModelIdAndNormalizedName(model.getId(), normalized)
+                    .orElseThrow(() -> new IllegalStateException("Could not add vehicle engine " + engine));
+        });
+    }
+
+    private VehicleTrim resolveTrim(VehicleModel model, String trim) {
+        String normalized = normalize(trim);
+        return vehicleTrimRepository.findByModelIdAndNormalizedName(model.getId(), normalized).orElseGet(() -> {
+            vehicleTrimRepository.insertIfAbsent(model.getId(), trim.trim(), normalized);
+            return vehicleTrimRepository.findByModelIdAndNormalizedName(model.getId(), normalized)
+                    .orElseThrow(() -> new IllegalStateException("Could not add vehicle trim " + trim));
+        });
+    }
+}
@@ -0,0 +1,291 @@
+package com.mathotech.autopartshub.service;
+
+import com.mathotech.autopartshub.event.ListingChangedEvent;
+import com.mathotech.autopartshub.repository.CompatibilityMappingRepository;
+import com.mathotech.autopartshub.repository.CompatibilityMappingRepository.FitmentRow;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-memory answer to "which active listings fit this vehicle". Fitments are grouped by catalog
+ * model id, and again by engine id, into buckets of year ranges; the matching IDs for a given year
+ * are worked out once per bucket and memoized until the bucket next changes.
+ * <p>
+ * The index is loaded in the background at startup and follows listing edits via
+ * {@link ListingChangedEvent}, including edits on other nodes relayed by
+ * {@link ListingChangeRelay}. Until the first load finishes, lookups return empty and callers
+ * fall back to the database.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VehicleFitmentIndex {
+
+    private static final long[] NO_IDS = new long[0];
+    private static final int MAX_MEMOIZED_YEARS = 256;
+
+    private final CompatibilityMappingRepository compatibilityMappingRepository;
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fitment-index-load");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Set<Long> changedDuringLoad = ConcurrentHashMap.newKeySet();
+
+    private volatile Snapshot snapshot;
+    private volatile boolean loading;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        rebuildInBackground();
+    }
+
+    /**
+     * For bulk changes that bypass {@link ListingChangedEvent}, such as fitment imports.
+     */
+    public void rebuildInBackground() {
+        loader.submit(this::rebuild);
+    }
+
+    /**
+     * Reloads every active fitment into a fresh index and swaps it in. Listings edited while the
+     * load was running are re-read afterwards so the new index doesn't miss them.
+     */
+    public void rebuild() {
+        loading = true;
+        try {
+            long started = System.currentTimeMillis();
+            List<FitmentRow> rows = compatibilityMappingRepository.findActiveFitments();
+            Map<Long, List<FitmentRow>> byListing = new HashMap<>();
+            for (FitmentRow row : rows) {
+                byListing.computeIfAbsent(row.getListingId(), id -> new ArrayList<>()).add(row);
+            }
+            Snapshot fresh = Snapshot.load(byListing);
+
+            synchronized (this) {
+                snapshot = fresh;
+                loading = false;
+            }
+            for (Long listingId : drainChanged()) {
+                reload(listingId);
+            }
+            log.info("Loaded vehicle fitment index: {} fitments across {} listings in {} ms",
+                    rows.size(), byListing.size(), System.currentTimeMillis() - started);
+        } catch (Exception ex) {
+            loading = false;
+            log.error("Failed to load vehicle fitment index", ex);
+        }
+    }
+
+    /**
+     * Returns the IDs of active listings fitting the vehicle, in ascending order, or empty if the
+     * index isn't loaded yet. As in the SQL lookup, an engine only matches fitments naming that
+     * engine, while no engine matches any. The array is shared and must not be modified.
+     */
+    public Optional<long[]> findListingIds(int modelId, int year, Integer engineId) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return Optional.empty();
+        }
+        FitmentBucket bucket = current.buckets.get(engineId != null ? engineKey(engineId) : modelKey(modelId));
+        return Optional.of(bucket != null ? bucket.idsForYear(year) : NO_IDS);
+    }
+
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        try {
+            if (loading) {
+                changedDuringLoad.add(event.getListingId());
+            }
+            if (event.getType() == ListingChangedEvent.ChangeType.DELETED) {
+                apply(event.getListingId(), List.of());
+            } else {
+                reload(event.getListingId());
+            }
+        } catch (Exception ex) {
+            log.warn("Failed to update fitment index for listing {}: {}", event.getListingId(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Applies a change committed on another node. Runs on the loader thread, so a change that
+     * arrives during a rebuild is applied after it.
+     */
+    public void onRemoteChange(ListingChangedEvent event) {
+        loader.submit(() -> onListingChanged(event));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    private void reload(Long listingId) {
+        apply(listingId, compatibilityMappingRepository.findActiveFitmentsByListingId(listingId));
+    }
+
+    private synchronized void apply(Long listingId, List<FitmentRow> rows) {
+        if (snapshot != null) {
+            snapshot.replace(listingId, rows);
+        }
+    }
+
+    private List<Long> drainChanged() {
+        List<Long> ids = new ArrayList<>(changedDuringLoad);
+        changedDuringLoad.removeAll(ids);
+        return ids;
+    }
+
+    // Engine ids live in the upper half of the key space so they can't collide with model ids
+    private static long modelKey(int modelId) {
+        return modelId;
+    }
+
+    private static long engineKey(int engineId) {
+        return (1L << 32) | engineId;
+    }
+
+    /**
+     * Buckets plus a reverse map so a listing's old fitments can be dropped when it changes.
+     * Writers are serialised by the enclosing index; readers only touch the concurrent maps.
+     */
+    private static final class Snapshot {
+        private final Map<Long, FitmentBucket> buckets = new ConcurrentHashMap<>();
+        private final Map<Long, Set<Long>> keysByListing = new HashMap<>();
+
+        /**
+         * Builds every bucket in plain maps and publishes each once, rather than replacing
+         * listings one at a time, which would copy a bucket's map for every listing in it.
+         */
+        static Snapshot load(Map<Long, List<FitmentRow>> byListing) {
+            Snapshot snapshot = new Snapshot();
+            Map<Long, Map<Long, List<int[]>>> rangesByListingByKey = new HashMap<>();
+            byListing.forEach((listingId, rows) -> {
+                Map<Long, List<int[]>> rangesByKey = rangesByKey(rows);
+                rangesByKey.forEach((key, ranges) -> rangesByListingByKey
+                        .computeIfAbsent(key, k -> new HashMap<>())
+                        .put(listingId, List.copyOf(ranges)));
+                snapshot.keysByListing.put(listingId, rangesByKey.keySet());
+            });
+            rangesByListingByKey.forEach((key, ranges) -> snapshot.buckets.put(key, new FitmentBucket(ranges)));
+            return snapshot;
+        }
+
+        void replace(Long listingId, List<FitmentRow> rows) {
+            Set<Long> oldKeys = keysByListing.remove(listingId);
+            if (oldKeys != null) {
+                for (Long key : oldKeys) {
+                    FitmentBucket bucket = buckets.get(key);
+                    if (bucket != null && bucket.remove(listingId)) {
+                        buckets.remove(key);
+                    }
+                }
+            }
+            if (rows.isEmpty()) {
+                return;
+            }
+
+            Map<Long, List<int[]>> rangesByKey = rangesByKey(rows);
+            rangesByKey.forEach((key, ranges) ->
+                    buckets.computeIfAbsent(key, k -> new FitmentBucket(Map.of())).put(listingId, ranges));
+            keysByListing.put(listingId, rangesByKey.keySet());
+        }
+
+        // A fitment without an engine only answers model lookups
+        private static Map<Long, List<int[]>> rangesByKey(List<FitmentRow> rows) {
+            Map<Long, List<int[]>> rangesByKey = new HashMap<>();
+            for (FitmentRow row : rows) {
+                int[] range = {row.getYearStart(), row.getYearEnd()};
+                rangesByKey.computeIfAbsent(modelKey(row.getModelId()), k -> new ArrayList<>()).add(range);
+                if (row.getEngineId() != null) {
+                    rangesByKey.computeIfAbsent(engineKey(row.getEngineId()), k -> new ArrayList<>()).add(range);
+                }
+            }
+            return rangesByKey;
+        }
+    }
+
+    /**
+     * Year ranges for one vehicle key. State is copy-on-write for single-listing changes so
+     * lookups never lock; the per-year memo lives inside the state and is discarded along with it.
+     */
+    private static final class FitmentBucket {
+        private volatile BucketState state;
+
+        FitmentBucket(Map<Long, List<int[]>> ranges) {
+            this.state = new BucketState(ranges);
+        }
+
+        long[] idsForYear(int year) {
+            BucketState current = state;
+            if (current.idsByYear.size() >= MAX_MEMOIZED_YEARS) {
+                long[] memoized = current.idsByYear.get(year);
+                return memoized != null ? memoized : current.scan(year);
+            }
+            return current.idsByYear.computeIfAbsent(year, current::scan);
+        }
+
+        void put(Long listingId, List<int[]> ranges) {
+            Map<Long, List<int[]>> next = new HashMap<>(state.ranges);
+            next.put(listingId, List.copyOf(ranges));
+            state = new BucketState(next);
+        }
+
+        /**
+         * Returns true when the bucket is left empty.
+         */
+        boolean remove(Long listingId) {
+            if (state.ranges.containsKey(listingId)) {
+                Map<Long, List<int[]>> next = new HashMap<>(state.ranges);
+                next.remove(listingId);
+                state = new BucketState(next);
+            }
+            return state.ranges.isEmpty();
+        }
+    }
+
+    private static final class BucketState {
+        private final Map<Long, List<int[]>> ranges;
+        private final Map<Integer, long[]> idsByYear = new ConcurrentHashMap<>();
+
+        private BucketState(Map<Long, List<int[]>> ranges) {
+            this.ranges = ranges;
+        }
+
+        private long[] scan(int year) {
+            long[] ids = new long[ranges.size()];
+            int count = 0;
+            for (Map.Entry<Long, List<int[]>> entry : ranges.entrySet()) {
+                for (int[] range : entry.getValue()) {
+                    if (year >= range[0] && year <= range[1]) {
+                        ids[count++] = entry.getKey();
+                        break;
+                    }
+                }
+            }
+            long[] result = Arrays.copyOf(ids, count);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.mathotech.autopartshub.service;
+
+import com.mathotech.autopartshub.dto.VinDecodeDto;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Year;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decodes VINs locally from the tables bundled under resources/vin: the manufacturer from the WMI
+ * (positions 1-3), model and engine from the descriptor section (positions 4-8) and the model year
+ * from position 10. Tables are held as arrays indexed by character code, so a decode is a few
+ * array reads and never leaves the process.
+ */
+@Service
+@Slf4j
+public class VinDecoderService {
+
+    private static final int VIN_LENGTH = 17;
+    private static final int RADIX = 36;
+    private static final int[] CHECK_WEIGHTS = {8, 7, 6, 5, 4, 3, 2, 10, 0, 9, 8, 7, 6, 5, 4, 3, 2};
+    // Check-digit values of A-Z; I, O and Q never appear in a VIN
+    private static final String LETTER_VALUES = "12345678-12345-7-923456789";
+    // Position 10 codes for 1980-2009; the same codes repeat every 30 years
+    private static final String YEAR_CODES = "ABCDEFGHJKLMNPRSTVWXY123456789";
+    private static final int FIRST_CODED_YEAR = 1980;
+    private static final int YEAR_CYCLE = 30;
+
+    private static final DescriptorRule[] NO_RULES = new DescriptorRule[0];
+    private static final int[] CHAR_CODES = new int[128];
+    private static final int[] YEAR_BY_CODE = new int[128];
+
+    static {
+        Arrays.fill(CHAR_CODES, -1);
+        for (char c = '0'; c <= '9'; c++) {
+            CHAR_CODES[c] = c - '0';
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            if (c != 'I' && c != 'O' && c != 'Q') {
+                CHAR_CODES[c] = c - 'A' + 10;
+            }
+        }
+        for (int i = 0; i < YEAR_CODES.length(); i++) {
+            YEAR_BY_CODE[YEAR_CODES.charAt(i)] = FIRST_CODED_YEAR + i;
+        }
+    }
+
+    @Value("${app.vin.cache-size:50000}")
+    private int cacheSize;
+
+    // Indexed by the base-36 value of the WMI
+    private final String[] makeByWmi = new String[RADIX * RADIX * RADIX];
+    private final Map<Integer, DescriptorRule[]> rulesByWmi = new HashMap<>();
+
+    // Keyed by positions 1-8 and 10, the only ones the decode reads, so every car of the same
+    // specification shares an entry whatever its serial number
+    private final Map<String, Decoded> decoded = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void loadTables() throws IOException {
+        int makes = loadManufacturers();
+        int rules = loadDescriptorRules();
+        log.info("Loaded VIN tables: {} manufacturer codes, {} descriptor patterns", makes, rules);
+    }
+
+    /**
+     * Decodes the VIN. Make and year are always present in the result; model and engine are null
+     * when the descriptor section isn't in the bundled tables.
+     */
+    public VinDecodeDto decode(String vin) {
+        String normalized = normalize(vin);
+        Decoded vehicle = decoded.get(cacheKey(normalized));
+        if (vehicle == null) {
+            vehicle = decodeUncached(normalized);
+            if (decoded.size() < cacheSize) {
+                decoded.put(cacheKey(normalized), vehicle);
+            }
+        }
+
+        return VinDecodeDto.builder()
+                .vin(normalized)
+                .wmi(normalized.substring(0, 3))
+                .make(vehicle.make)
+                .model(vehicle.model)
+                .engine(vehicle.engine)
+                .year(vehicle.year)
+                .checkDigitValid(hasValidCheckDigit(normalized))
+                .build();
+    }
+
+    private Decoded decodeUncached(String vin) {
+        int wmi = wmiCode(vin);
+        String make = makeByWmi[wmi];
+        if (make == null) {
+            throw new EntityNotFoundException("Unknown manufacturer code " + vin.substring(0, 3));
+        }
+
+        int codedYear = YEAR_BY_CODE[vin.charAt(9)];
+        if (codedYear == 0) {
+            throw new IllegalArgumentException("Invalid model year code " + vin.charAt(9));
+        }
+        // Newest first, and never a model year that can't have been built yet
+        int[] candidates = codedYear + YEAR_CYCLE <= Year.now().getValue() + 1
+                ? new int[] {codedYear + YEAR_CYCLE, codedYear}
+                : new int[] {codedYear};
+
+        for (DescriptorRule rule : rulesByWmi.getOrDefault(wmi, NO_RULES)) {
+            if (!rule.matches(vin)) {
+                continue;
+            }
+            for (int year : candidates) {
+                if (rule.covers(year)) {
+                    return new Decoded(make, rule.model, rule.engine, year);
+                }
+            }
+        }
+        return new Decoded(make, null, null, defaultYear(vin, candidates));
+    }
+
+    /**
+     * North American VINs carry a letter in position 7 from 2010 on and a digit before. Elsewhere
+     * take the most recent candidate.
+     */
+    private static int defaultYear(String vin, int[] candidates) {
+        char region = vin.charAt(0);
+        if (candidates.length > 1 && region >= '1' && region <= '5' && !Character.isLetter(vin.charAt(6))) {
+            return candidates[1];
+        }
+        return candidates[0];
+    }
+
+    private static String normalize(String vin) {
+        String normalized = vin == null ? "" : vin.trim().toUpperCase(Locale.ROOT);
+        if (normalized.length() != VIN_LENGTH) {
+            throw new IllegalArgumentException("A VIN has exactly 17 characters");
+        }
+        for (int i = 0; i < VIN_LENGTH; i++) {
+            char c = normalized.charAt(i);
+            if (c >= 128 || CHAR_CODES[c] < 0) {
+                throw new IllegalArgumentException("Invalid VIN character '" + c + "'");
+            }
+        }
+        return normalized;
+    }
+
+    private static String cacheKey(String vin) {
+        return vin.substring(0, 8) + vin.charAt(9);
+    }
+
+    private static boolean hasValidCheckDigit(String vin) {
+        int sum = 0;
+        for (int i = 0; i < VIN_LENGTH; i++) {
+            char c = vin.charAt(i);
+            int value = Character.isDigit(c) ? c - '0' : LETTER_VALUES.charAt(c - 'A') - '0';
+            sum += value * CHECK_WEIGHTS[i];
+        }
+        int remainder = sum % 11;
+        char expected = remainder == 10 ? 'X' : (char) ('0' + remainder);
+        return vin.charAt(8) == expected;
+    }
+
+    private static int wmiCode(CharSequence wmi) {
+        return (CHAR_CODES[wmi.charAt(0)] * RADIX + CHAR_CODES[wmi.charAt(1)]) * RADIX + CHAR_CODES[wmi.charAt(2)];
+    }
+
+    private int loadManufacturers() throws IOException {
+        List<String[]> rows = readTable("vin/wmi.csv", 2);
+        // Two-character prefixes first, so exact three-character codes overwrite them
+        rows.sort(Comparator.comparingInt(row -> row[0].length()));
+        for (String[] row : rows) {
+            String wmi = row[0];
+            String make = row[1].intern();
+            if (wmi.length() == 3) {
+                makeByWmi[wmiCode(wmi)] = make;
+            } else if (wmi.length() == 2) {
+                for (int c = 0; c < RADIX; c++) {
+                    makeByWmi[wmiCode(wmi + "0") + c] = make;
+                }
+            } else {
+                throw new IllegalStateException("Bad WMI in vin/wmi.csv: " + wmi);
+            }
+        }
+        return rows.size();
+    }
+
+    private int loadDescriptorRules() throws IOException {
+        List<String[]> rows = readTable("vin/vds.csv", 6);
+        Map<Integer, List<DescriptorRule>> rules = new HashMap<>();
+        for (String[] row : rows) {
+            if (row[0].length() != 3 || row[1].length() != 5) {
+                throw new IllegalStateException("Bad pattern in vin/vds.csv: " + String.join(",", row));
+            }
+            DescriptorRule rule = new DescriptorRule(row[1].toCharArray(), row[2].intern(),
+                    row[3].isEmpty() ? null : row[3].intern(),
+                    row[4].isEmpty() ? Integer.MIN_VALUE : Integer.parseInt(row[4]),
+                    row[5].isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(row[5]));
+            rules.computeIfAbsent(wmiCode(row[0]), k -> new ArrayList<>()).add(rule);
+        }
+        rules.forEach((wmi, list) -> {
+            list.sort(Comparator.comparingInt(DescriptorRule::wildcards));
+            rulesByWmi.put(wmi, list.toArray(new DescriptorRule[0]));
+        });
+        return rows.size();
+    }
+
+    private static List<String[]> readTable(String path, int columns) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ClassPathResource(path).getInputStream(), StandardCharsets.UTF_8))) {
+            boolean header = true;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                if (header) {
+                    header = false;
+                    continue;
+                }
+                String[] fields = line.split(",", -1);
+                if (fields.length != columns) {
+                    throw new IllegalStateException("Expected " + columns + " columns in " + path + ": " + line);
+                }
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i] = fields[i].trim();
+                }
+                rows.add(fields);
+            }
+        }
+        return rows;
+    }
+
+    private static final class DescriptorRule {
+        private final char[] pattern;
+        private final String model;
+        private final String engine;
+        private final int yearFrom;
+        private final int yearTo;
+
+        private DescriptorRule(char[] pattern, String model, String engine, int yearFrom, int yearTo) {
+            this.pattern = pattern;
+            this.model = model;
+            this.engine = engine;
+            this.yearFrom = yearFrom;
+            this.yearTo = yearTo;
+        }
+
+        boolean matches(String vin) {
+            for (int i = 0; i < pattern.length; i++) {
+                if (pattern[i] != '*' && pattern[i] != vin.charAt(3 + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean covers(int year) {
+            return year >= yearFrom && year <= yearTo;
+        }
+
+        int wildcards() {
+            int count = 0;
+            for (char c : pattern) {
+                if (c == '*') {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private static final class Decoded {
+        private final String make;
+        private final String model;
+        private final String engine;
+        private final int year;
+
+        private Decoded(String make, String model, String engine, int year) {
+            this.make = make;
+            this.model = model;
+            this.engine = engine;
+            this.year = year;
+        }
+    }
+}
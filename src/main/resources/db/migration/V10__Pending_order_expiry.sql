@@ -0,0 +1,5 @@
+-- V10__Pending_order_expiry.sql
+-- Lets the expiry sweep find unpaid orders past the payment window oldest first without scanning
+-- every order; only orders awaiting payment are indexed.
+
+CREATE INDEX idx_orders_pending_payment_created ON orders (created_at) WHERE status = 'PENDING_PAYMENT';
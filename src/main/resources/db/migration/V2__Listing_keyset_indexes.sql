@@ -0,0 +1,23 @@
+-- V2__Listing_keyset_indexes.sql
+-- Composite (sort key, id) indexes backing keyset pagination on the listing browse endpoints.
+-- Btree indexes scan in both directions, so one index serves ASC and DESC.
+
+-- All active listings
+CREATE INDEX idx_listings_active_created_id ON listings(created_at, id) WHERE active = TRUE;
+CREATE INDEX idx_listings_active_price_id ON listings(price, id) WHERE active = TRUE;
+CREATE INDEX idx_listings_active_rating_id ON listings((COALESCE(average_rating, 0)), id) WHERE active = TRUE;
+
+-- Category browse
+CREATE INDEX idx_listings_category_created_id ON listings(category_id, created_at, id) WHERE active = TRUE;
+CREATE INDEX idx_listings_category_price_id ON listings(category_id, price, id) WHERE active = TRUE;
+CREATE INDEX idx_listings_category_rating_id ON listings(category_id, (COALESCE(average_rating, 0)), id) WHERE active = TRUE;
+
+-- Brand browse
+CREATE INDEX idx_listings_brand_created_id ON listings(brand_id, created_at, id) WHERE active = TRUE;
+CREATE INDEX idx_listings_brand_price_id ON listings(brand_id, price, id) WHERE active = TRUE;
+CREATE INDEX idx_listings_brand_rating_id ON listings(brand_id, (COALESCE(average_rating, 0)), id) WHERE active = TRUE;
+
+-- Seller storefront (includes inactive listings)
+CREATE INDEX idx_listings_seller_created_id ON listings(seller_id, created_at, id);
+CREATE INDEX idx_listings_seller_price_id ON listings(seller_id, price, id);
+CREATE INDEX idx_listings_seller_rating_id ON listings(seller_id, (COALESCE(average_rating, 0)), id);
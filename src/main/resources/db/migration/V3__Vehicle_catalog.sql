@@ -0,0 +1,153 @@
+-- V3__Vehicle_catalog.sql
+-- Vehicle catalog (make -> model -> engine/trim) with integer ids. Compatibility mappings are
+-- rewritten to reference it instead of repeating free-text names per listing.
+
+-- Case-folds and collapses whitespace; the Java side mirrors this in VehicleCatalogService.normalize
+CREATE FUNCTION normalize_vehicle_name(value TEXT) RETURNS TEXT
+    LANGUAGE sql IMMUTABLE AS
+$$ SELECT lower(regexp_replace(btrim(value), '\s+', ' ', 'g')) $$;
+
+CREATE TABLE vehicle_makes (
+    id SERIAL PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    normalized_name VARCHAR(100) NOT NULL UNIQUE,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- Alternative spellings resolved to a canonical make on write and on lookup
+CREATE TABLE vehicle_make_aliases (
+    alias VARCHAR(100) PRIMARY KEY,
+    make_id INTEGER NOT NULL,
+    FOREIGN KEY (make_id) REFERENCES vehicle_makes(id) ON DELETE CASCADE
+);
+
+CREATE TABLE vehicle_models (
+    id SERIAL PRIMARY KEY,
+    make_id INTEGER NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    normalized_name VARCHAR(100) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    FOREIGN KEY (make_id) REFERENCES vehicle_makes(id),
+    UNIQUE (make_id, normalized_name)
+);
+
+CREATE TABLE vehicle_engines (
+    id SERIAL PRIMARY KEY,
+    model_id INTEGER NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    normalized_name VARCHAR(100) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    FOREIGN KEY (model_id) REFERENCES vehicle_models(id),
+    UNIQUE (model_id, normalized_name)
+);
+
+CREATE TABLE vehicle_trims (
+    id SERIAL PRIMARY KEY,
+    model_id INTEGER NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    normalized_name VARCHAR(100) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    FOREIGN KEY (model_id) REFERENCES vehicle_models(id),
+    UNIQUE (model_id, normalized_name)
+);
+
+-- Canonical makes that have common alternative spellings
+INSERT INTO vehicle_makes (name, normalized_name) VALUES
+    ('Volkswagen', 'volkswagen'),
+    ('Mercedes-Benz', 'mercedes-benz'),
+    ('Chevrolet', 'chevrolet'),
+    ('Land Rover', 'land rover'),
+    ('Alfa Romeo', 'alfa romeo'),
+    ('Rolls-Royce', 'rolls-royce'),
+    ('Citroen', 'citroen'),
+    ('Mitsubishi', 'mitsubishi');
+
+INSERT INTO vehicle_make_aliases (alias, make_id)
+SELECT a.alias, m.id
+FROM (VALUES
+    ('vw', 'volkswagen'),
+    ('volkswagon', 'volkswagen'),
+    ('mercedes', 'mercedes-benz'),
+    ('mercedes benz', 'mercedes-benz'),
+    ('merc', 'mercedes-benz'),
+    ('benz', 'mercedes-benz'),
+    ('chevy', 'chevrolet'),
+    ('landrover', 'land rover'),
+    ('land-rover', 'land rover'),
+    ('alfa', 'alfa romeo'),
+    ('rolls royce', 'rolls-royce'),
+    ('citroën', 'citroen'),
+    ('mitsi', 'mitsubishi')
+) AS a(alias, normalized_name)
+JOIN vehicle_makes m ON m.normalized_name = a.normalized_name;
+
+-- Backfill the catalog from the existing free-text mappings
+INSERT INTO vehicle_makes (name, normalized_name)
+SELECT DISTINCT ON (normalize_vehicle_name(make)) btrim(make), normalize_vehicle_name(make)
+FROM compatibility_mappings
+WHERE normalize_vehicle_name(make) NOT IN (SELECT alias FROM vehicle_make_aliases)
+ORDER BY normalize_vehicle_name(make), make
+ON CONFLICT (normalized_name) DO NOTHING;
+
+ALTER TABLE compatibility_mappings
+    ADD COLUMN make_id INTEGER,
+    ADD COLUMN model_id INTEGER,
+    ADD COLUMN engine_id INTEGER,
+    ADD COLUMN trim_id INTEGER;
+
+UPDATE compatibility_mappings cm
+SET make_id = COALESCE(
+        (SELECT a.make_id FROM vehicle_make_aliases a WHERE a.alias = normalize_vehicle_name(cm.make)),
+        (SELECT m.id FROM vehicle_makes m WHERE m.normalized_name = normalize_vehicle_name(cm.make)));
+
+INSERT INTO vehicle_models (make_id, name, normalized_name)
+SELECT DISTINCT ON (make_id, normalize_vehicle_name(model)) make_id, btrim(model), normalize_vehicle_name(model)
+FROM compatibility_mappings
+ORDER BY make_id, normalize_vehicle_name(model), model;
+
+UPDATE compatibility_mappings cm
+SET model_id = vm.id
+FROM vehicle_models vm
+WHERE vm.make_id = cm.make_id AND vm.normalized_name = normalize_vehicle_name(cm.model);
+
+INSERT INTO vehicle_engines (model_id, name, normalized_name)
+SELECT DISTINCT ON (model_id, normalize_vehicle_name(engine)) model_id, btrim(engine), normalize_vehicle_name(engine)
+FROM compatibility_mappings
+WHERE engine IS NOT NULL AND btrim(engine) <> ''
+ORDER BY model_id, normalize_vehicle_name(engine), engine;
+
+UPDATE compatibility_mappings cm
+SET engine_id = ve.id
+FROM vehicle_engines ve
+WHERE ve.model_id = cm.model_id AND ve.normalized_name = normalize_vehicle_name(cm.engine);
+
+INSERT INTO vehicle_trims (model_id, name, normalized_name)
+SELECT DISTINCT ON (model_id, normalize_vehicle_name(trim)) model_id, btrim(trim), normalize_vehicle_name(trim)
+FROM compatibility_mappings
+WHERE trim IS NOT NULL AND btrim(trim) <> ''
+ORDER BY model_id, normalize_vehicle_name(trim), trim;
+
+UPDATE compatibility_mappings cm
+SET trim_id = vt.id
+FROM vehicle_trims vt
+WHERE vt.model_id = cm.model_id AND vt.normalized_name = normalize_vehicle_name(cm.trim);
+
+-- Swap the free-text columns for the catalog references
+ALTER TABLE compatibility_mappings
+    ALTER COLUMN make_id SET NOT NULL,
+    ALTER COLUMN model_id SET NOT NULL,
+    ADD FOREIGN KEY (make_id) REFERENCES vehicle_makes(id),
+    ADD FOREIGN KEY (model_id) REFERENCES vehicle_models(id),
+    ADD FOREIGN KEY (engine_id) REFERENCES vehicle_engines(id),
+    ADD FOREIGN KEY (trim_id) REFERENCES vehicle_trims(id);
+
+DROP INDEX idx_compatibility_vehicle;
+
+ALTER TABLE compatibility_mappings
+    DROP COLUMN make,
+    DROP COLUMN model,
+    DROP COLUMN engine,
+    DROP COLUMN trim;
+
+CREATE INDEX idx_compatibility_model_years ON compatibility_mappings(model_id, year_start, year_end);
+CREATE INDEX idx_compatibility_engine ON compatibility_mappings(engine_id) WHERE engine_id IS NOT NULL;
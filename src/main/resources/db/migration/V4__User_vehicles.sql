@@ -0,0 +1,20 @@
+-- V4__User_vehicles.sql
+-- Buyers' saved vehicles ("my garage"), referencing the vehicle catalog.
+
+CREATE TABLE user_vehicles (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    make_id INTEGER NOT NULL,
+    model_id INTEGER NOT NULL,
+    engine_id INTEGER,
+    year INTEGER NOT NULL,
+    nickname VARCHAR(50),
+    vin VARCHAR(17),
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    FOREIGN KEY (make_id) REFERENCES vehicle_makes(id),
+    FOREIGN KEY (model_id) REFERENCES vehicle_models(id),
+    FOREIGN KEY (engine_id) REFERENCES vehicle_engines(id)
+);
+
+CREATE INDEX idx_user_vehicles_user ON user_vehicles(user_id);
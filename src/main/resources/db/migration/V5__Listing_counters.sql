@@ -0,0 +1,15 @@
+-- V5__Listing_counters.sql
+-- Active listing counts per category and per brand, kept up to date by ListingService as
+-- listings are written so the category and brand menus never GROUP BY over listings.
+
+CREATE TABLE listing_counters (
+    kind VARCHAR(20) NOT NULL,
+    ref_id BIGINT NOT NULL,
+    active_count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (kind, ref_id)
+);
+
+INSERT INTO listing_counters (kind, ref_id, active_count)
+SELECT 'CATEGORY', category_id, COUNT(*) FROM listings WHERE active GROUP BY category_id
+UNION ALL
+SELECT 'BRAND', brand_id, COUNT(*) FROM listings WHERE active AND brand_id IS NOT NULL GROUP BY brand_id;
@@ -0,0 +1,10 @@
+-- V6__Reference_data_version.sql
+-- Version of the category and brand reference data, bumped in the same transaction as every
+-- change so each node can tell whether its in-memory snapshot is current.
+
+CREATE TABLE reference_data_version (
+    id INTEGER PRIMARY KEY CHECK (id = 1),
+    version BIGINT NOT NULL
+);
+
+INSERT INTO reference_data_version (id, version) VALUES (1, 1);
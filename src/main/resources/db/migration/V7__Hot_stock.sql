@@ -0,0 +1,26 @@
+-- V7__Hot_stock.sql
+-- Hot-stock mode for flash sales. Each node claims blocks of a flagged listing's stock into an
+-- allotment and admits checkouts against it in memory, so orders don't queue on the listing row.
+-- Every sale is recorded in its order's transaction and folded into the allotment in batches;
+-- allotments whose lease runs out (a node stopped) are returned to the listing.
+
+ALTER TABLE listings ADD COLUMN hot_stock BOOLEAN NOT NULL DEFAULT FALSE;
+
+CREATE TABLE hot_stock_allotments (
+    listing_id BIGINT NOT NULL REFERENCES listings(id) ON DELETE CASCADE,
+    node_id VARCHAR(36) NOT NULL,
+    units INTEGER NOT NULL,
+    lease_until TIMESTAMP NOT NULL,
+    PRIMARY KEY (listing_id, node_id)
+);
+
+CREATE INDEX idx_hot_stock_allotments_lease ON hot_stock_allotments (lease_until);
+
+-- Append-only, so concurrent checkouts never contend on a row
+CREATE TABLE hot_stock_sales (
+    listing_id BIGINT NOT NULL,
+    node_id VARCHAR(36) NOT NULL,
+    units INTEGER NOT NULL
+);
+
+CREATE INDEX idx_hot_stock_sales_allotment ON hot_stock_sales (listing_id, node_id);
@@ -0,0 +1,5 @@
+-- V8__Order_number_sequence.sql
+-- Source of order numbers. Each nextval hands a node a block of 1000 numbers, which it issues
+-- from memory; the increment must match OrderNumberGenerator.BLOCK_SIZE.
+
+CREATE SEQUENCE order_number_seq START WITH 1000 INCREMENT BY 1000 MINVALUE 1000;
@@ -0,0 +1,13 @@
+-- V9__Pooled_ids.sql
+-- Orders, order items and notifications take IDs from their sequences in blocks of 50 (Hibernate's
+-- pooled optimizer) instead of one IDENTITY insert at a time, so their inserts can be batched.
+-- A pooled block ends at the value nextval returns, so each sequence moves at least a block past
+-- the highest existing ID. The increments must match allocationSize on the entities.
+
+ALTER SEQUENCE orders_id_seq INCREMENT BY 50;
+ALTER SEQUENCE order_items_id_seq INCREMENT BY 50;
+ALTER SEQUENCE notifications_id_seq INCREMENT BY 50;
+
+SELECT setval('orders_id_seq', (SELECT COALESCE(MAX(id), 0) FROM orders) + 50);
+SELECT setval('order_items_id_seq', (SELECT COALESCE(MAX(id), 0) FROM order_items) + 50);
+SELECT setval('notifications_id_seq', (SELECT COALESCE(MAX(id), 0) FROM notifications) + 50);
@@ -0,0 +1,97 @@
+package com.mathotech.autopartshub.repository;
+
+import com.mathotech.autopartshub.dto.listing.ListingSummaryDto;
+import com.mathotech.autopartshub.model.Category;
+import com.mathotech.autopartshub.model.Listing;
+import com.mathotech.autopartshub.model.ListingImage;
+import com.mathotech.autopartshub.model.Seller;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ListingSummaryQueryTest extends PostgresRepositoryTest {
+
+    private static final PageRequest PAGE = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt"));
+
+    @Autowired
+    private ListingRepository listingRepository;
+
+    private Seller seller;
+    private Category category;
+
+    @BeforeEach
+    void listingsWithImages() {
+        seller = seller();
+        category = category();
+        for (int i = 0; i < 30; i++) {
+            Listing listing = listing(seller, category, i);
+            entityManager.persist(image(listing, "https://img.example.com/" + i + "/front.jpg", true));
+            entityManager.persist(image(listing, "https://img.example.com/" + i + "/back.jpg", false));
+        }
+        entityManager.flush();
+        // Nothing may come from the persistence context
+        entityManager.clear();
+        SqlStatements.clear();
+    }
+
+    @Test
+    void activePageIsOneStatement() {
+        Slice<ListingSummaryDto> page = listingRepository.findSummariesByActiveTrue(PAGE);
+
+        assertSummaries(page);
+        assertThat(SqlStatements.all()).hasSize(1);
+    }
+
+    @Test
+    void categoryPageIsOneStatement() {
+        Slice<ListingSummaryDto> page = listingRepository.findSummariesByCategoryIdInAndActiveTrue(
+                List.of(category.getId()), PAGE);
+
+        assertSummaries(page);
+        assertThat(SqlStatements.all()).hasSize(1);
+    }
+
+    @Test
+    void sellerPageIsOneStatement() {
+        Slice<ListingSummaryDto> page = listingRepository.findSummariesBySellerId(seller.getId(), PAGE);
+
+        assertSummaries(page);
+        assertThat(SqlStatements.all()).hasSize(1);
+    }
+
+    @Test
+    void pageWithTotalIsTwoStatements() {
+        Slice<ListingSummaryDto> page = listingRepository.findSummariesByActiveTrue(PAGE);
+        long total = listingRepository.countByActiveTrue();
+
+        assertSummaries(page);
+        assertThat(total).isEqualTo(30);
+        assertThat(SqlStatements.all()).hasSize(2);
+    }
+
+    private void assertSummaries(Slice<ListingSummaryDto> page) {
+        // One row per listing: the non-primary images must not multiply rows
+        assertThat(page.getContent()).hasSize(20);
+        assertThat(page.hasNext()).isTrue();
+        assertThat(page.getContent()).allSatisfy(summary -> {
+            assertThat(summary.getPrimaryImageUrl()).endsWith("/front.jpg");
+            assertThat(summary.getSellerBusinessName()).isEqualTo("Test Spares");
+            assertThat(summary.getSellerId()).isEqualTo(seller.getId());
+        });
+    }
+
+    private static ListingImage image(Listing listing, String url, boolean primary) {
+        return ListingImage.builder()
+                .listing(listing)
+                .imageUrl(url)
+                .primary(primary)
+                .build();
+    }
+}
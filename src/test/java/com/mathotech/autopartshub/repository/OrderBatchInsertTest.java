@@ -0,0 +1,80 @@
+package com.mathotech.autopartshub.repository;
+
+import com.mathotech.autopartshub.model.Category;
+import com.mathotech.autopartshub.model.Listing;
+import com.mathotech.autopartshub.model.Order;
+import com.mathotech.autopartshub.model.OrderItem;
+import com.mathotech.autopartshub.model.OrderStatus;
+import com.mathotech.autopartshub.model.Role;
+import com.mathotech.autopartshub.model.Seller;
+import com.mathotech.autopartshub.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderBatchInsertTest extends PostgresRepositoryTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Test
+    void twentyItemOrderInsertsItsItemsInOneBatch() {
+        User buyer = user(Role.ROLE_BUYER);
+        Seller seller = seller();
+        Category category = category();
+        List<Listing> listings = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            listings.add(listing(seller, category, i));
+        }
+        entityManager.flush();
+        SqlStatements.clear();
+
+        // As OrderService.createOrder writes them
+        Order order = orderRepository.save(order(buyer));
+        List<OrderItem> items = new ArrayList<>();
+        for (Listing listing : listings) {
+            items.add(OrderItem.builder()
+                    .order(order)
+                    .listing(listing)
+                    .seller(seller)
+                    .listingTitle(listing.getTitle())
+                    .quantity(1)
+                    .unitPrice(listing.getPrice())
+                    .totalPrice(listing.getPrice())
+                    .build());
+        }
+        orderItemRepository.saveAll(items);
+        entityManager.flush();
+
+        assertThat(SqlStatements.count("insert into order_items")).as(SqlStatements.all().toString()).isEqualTo(1);
+        assertThat(SqlStatements.count("insert into orders")).isEqualTo(1);
+        // Pooled ids: a block of 50 covers every item, so no nextval per row
+        assertThat(SqlStatements.count("select nextval('order_items_id_seq')")).isLessThanOrEqualTo(2);
+
+        entityManager.clear();
+        List<OrderItem> saved = orderItemRepository.findAllById(items.stream().map(OrderItem::getId).toList());
+        assertThat(saved).hasSize(20);
+        assertThat(new HashSet<>(saved.stream().map(OrderItem::getId).toList())).hasSize(20);
+    }
+
+    private static Order order(User buyer) {
+        return Order.builder()
+                .buyer(buyer)
+                .orderNumber("AH-TEST-" + System.nanoTime())
+                .status(OrderStatus.PENDING_PAYMENT)
+                .subtotal(BigDecimal.TEN)
+                .shippingFee(BigDecimal.ZERO)
+                .taxAmount(BigDecimal.ZERO)
+                .total(BigDecimal.TEN)
+                .build();
+    }
+}
@@ -0,0 +1,83 @@
+package com.mathotech.autopartshub.repository;
+
+import com.mathotech.autopartshub.model.Category;
+import com.mathotech.autopartshub.model.Condition;
+import com.mathotech.autopartshub.model.Listing;
+import com.mathotech.autopartshub.model.Role;
+import com.mathotech.autopartshub.model.Seller;
+import com.mathotech.autopartshub.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Repository tests against a real Postgres, migrated by Flyway, with every prepared statement
+ * recorded by {@link SqlStatements}. Sequences, batching and the projection queries behave
+ * differently enough on other databases that the results wouldn't carry over.
+ */
+@DataJpaTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.mathotech.autopartshub.repository.SqlStatements")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+abstract class PostgresRepositoryTest {
+
+    // Shared by every test class and left for Testcontainers to stop, so the cached Spring
+    // context never points at a stopped database
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    static {
+        POSTGRES.start();
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    protected TestEntityManager entityManager;
+
+    protected User user(Role role) {
+        return entityManager.persist(User.builder()
+                .firstName("Test")
+                .lastName("User")
+                .email(UUID.randomUUID() + "@example.com")
+                .password("not-a-real-hash")
+                .role(role)
+                .build());
+    }
+
+    protected Seller seller() {
+        return entityManager.persist(Seller.builder()
+                .user(user(Role.ROLE_SELLER))
+                .businessName("Test Spares")
+                .verificationStatus(Seller.SellerVerificationStatus.VERIFIED)
+                .build());
+    }
+
+    protected Category category() {
+        return entityManager.persist(Category.builder()
+                .name("Category " + UUID.randomUUID())
+                .build());
+    }
+
+    protected Listing listing(Seller seller, Category category, int n) {
+        return entityManager.persist(Listing.builder()
+                .title("Brake pad set " + n)
+                .description("Front brake pads")
+                .seller(seller)
+                .category(category)
+                .condition(Condition.NEW)
+                .price(BigDecimal.valueOf(100 + n))
+                .quantity(10)
+                .build());
+    }
+}
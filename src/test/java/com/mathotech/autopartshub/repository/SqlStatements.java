@@ -0,0 +1,37 @@
+package com.mathotech.autopartshub.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records every statement Hibernate prepares. A JDBC batch is prepared once however many rows it
+ * carries, so the count of a table's inserts is the number of round trips they took.
+ */
+public class SqlStatements implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    static void clear() {
+        STATEMENTS.clear();
+    }
+
+    static List<String> all() {
+        return List.copyOf(STATEMENTS);
+    }
+
+    static long count(String prefix) {
+        String lowerPrefix = prefix.toLowerCase(Locale.ROOT);
+        return STATEMENTS.stream()
+                .filter(sql -> sql.trim().toLowerCase(Locale.ROOT).startsWith(lowerPrefix))
+                .count();
+    }
+}